@@ -0,0 +1,63 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfTemplateBenchmark {
+
+    private PdfTemplate pdfTemplate;
+
+    @Setup
+    public void setUp() {
+        pdfTemplate = new PdfTemplate();
+    }
+
+    @Benchmark
+    public byte[] reparseFromClasspath() throws IOException {
+        try (InputStream in = PdfTemplate.class.getResourceAsStream(PdfTemplate.TEMPLATE_PATH);
+             PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(in))) {
+            PdfTemplate.normalize(document);
+            return render(document);
+        }
+    }
+
+    @Benchmark
+    public byte[] openPrepared() throws IOException {
+        try (PDDocument document = pdfTemplate.open()) {
+            return render(document);
+        }
+    }
+
+    private byte[] render(PDDocument document) throws IOException {
+        PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+        form.getField("billNumber").setValue("00000001");
+        form.getField("companyName").setValue("Compañía");
+        form.getField("customerName").setValue("Cliente");
+        form.getField("totalAmount").setValue("$ 100.00");
+        for (int i = 1; i <= 5; i++) {
+            form.getField("productName" + i).setValue("Producto " + i);
+            form.getField("unitPrice" + i).setValue("20.00");
+            form.getField("quantity" + i).setValue("1");
+            form.getField("total" + i).setValue("20.00");
+        }
+        form.flatten();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos);
+        return baos.toByteArray();
+    }
+
+}
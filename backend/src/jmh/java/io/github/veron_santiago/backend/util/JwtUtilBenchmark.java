@@ -0,0 +1,99 @@
+package io.github.veron_santiago.backend.util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String PRIVATE_KEY = "qDiBIxrYZhHwwX5+E2lNOZBARGBvGjcqfosEybVXu68=";
+    private static final String GENERATOR = "AUTH-JWT";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(null, PRIVATE_KEY, GENERATOR, PRIVATE_KEY);
+        token = jwtUtil.generateVerificationToken("empresa@mail.com");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String issuePerCall() {
+        return issue(Algorithm.HMAC256(PRIVATE_KEY));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String issueShared() {
+        return jwtUtil.generateVerificationToken("empresa@mail.com");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String issuePerCallContended() {
+        return issue(Algorithm.HMAC256(PRIVATE_KEY));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String issueSharedContended() {
+        return jwtUtil.generateVerificationToken("empresa@mail.com");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DecodedJWT verifyPerCall() {
+        return verify();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DecodedJWT verifyShared() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DecodedJWT verifyPerCallContended() {
+        return verify();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DecodedJWT verifySharedContended() {
+        return jwtUtil.validateToken(token);
+    }
+
+    // Comportamiento anterior: algoritmo y verificador nuevos en cada llamada
+    private String issue(Algorithm algorithm) {
+        return JWT.create()
+                .withIssuer(GENERATOR)
+                .withSubject("empresa@mail.com")
+                .withIssuedAt(new Date())
+                .withExpiresAt(new Date(System.currentTimeMillis() + 86400000L))
+                .withJWTId(UUID.randomUUID().toString())
+                .withNotBefore(new Date(System.currentTimeMillis()))
+                .sign(algorithm);
+    }
+
+    private DecodedJWT verify() {
+        return JWT.require(Algorithm.HMAC256(PRIVATE_KEY))
+                .withIssuer(GENERATOR)
+                .build()
+                .verify(token);
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor pdfTaskExecutor(@Value("${app.pdf.worker.pool-size:2}") int poolSize,
+                                                  @Value("${app.pdf.worker.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-worker-");
+        // Si la cola se llena, la factura se renderiza en el hilo del request en lugar de perderse
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor exportTaskExecutor(@Value("${app.export.pool-size:2}") int poolSize,
+                                                     @Value("${app.export.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bill-export-");
+        return executor;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService billStageExecutor() {
+        // Hilos virtuales: las etapas de una factura esperan red o base sin ocupar hilos de plataforma
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bill-stage-", 0).factory());
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import io.github.veron_santiago.backend.service.exception.BadGatewayException;
+import io.github.veron_santiago.backend.service.exception.ErrorMessages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerInterceptor.class);
+
+    private final String host;
+    private final int failureThreshold;
+    private final Duration openFor;
+
+    private int consecutiveFailures;
+    private Instant openUntil;
+    private boolean probing;
+
+    public CircuitBreakerInterceptor(String host, int failureThreshold, Duration openFor) {
+        this.host = host;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openFor = openFor;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!host.equalsIgnoreCase(request.getURI().getHost())) return execution.execute(request, body);
+
+        acquire();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().is5xxServerError()) onFailure();
+            else onSuccess();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return openUntil != null;
+    }
+
+    // Abierto: se corta sin llamar. Vencida la espera pasa un único pedido de prueba
+    private synchronized void acquire() {
+        if (openUntil == null) return;
+        if (Instant.now().isBefore(openUntil) || probing) {
+            throw new BadGatewayException(ErrorMessages.UPSTREAM_UNAVAILABLE.getMessage());
+        }
+        probing = true;
+    }
+
+    private synchronized void onSuccess() {
+        if (openUntil != null) log.info("Circuito hacia {} cerrado", host);
+        consecutiveFailures = 0;
+        openUntil = null;
+        probing = false;
+    }
+
+    private synchronized void onFailure() {
+        probing = false;
+        consecutiveFailures++;
+        if (openUntil != null || consecutiveFailures >= failureThreshold) {
+            if (openUntil == null) log.warn("Circuito hacia {} abierto tras {} fallas seguidas", host, consecutiveFailures);
+            openUntil = Instant.now().plus(openFor);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(@Value("${app.http.max-total:50}") int maxTotal,
+                                                                    @Value("${app.http.max-per-route:10}") int maxPerRoute,
+                                                                    @Value("${app.http.connect-timeout:3s}") Duration connectTimeout,
+                                                                    @Value("${app.http.read-timeout:10s}") Duration readTimeout,
+                                                                    @Value("${app.http.connection-ttl:5m}") Duration connectionTtl,
+                                                                    @Value("${app.mp.api-uri:https://api.mercadopago.com}") String mpApiUri,
+                                                                    @Value("${app.http.mp.max-per-route:20}") int mpMaxPerRoute) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(connectionTtl.toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+        // Mercado Pago tiene su propio cupo: las descargas de logos y PDFs no le quitan conexiones
+        manager.setMaxPerRoute(route(mpApiUri), mpMaxPerRoute);
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          @Value("${app.http.pool-timeout:2s}") Duration poolTimeout,
+                                          @Value("${app.http.read-timeout:10s}") Duration readTimeout,
+                                          @Value("${app.http.idle-timeout:30s}") Duration idleTimeout,
+                                          @Value("${app.http.retries:2}") int retries,
+                                          @Value("${app.http.retry-interval:200ms}") Duration retryInterval) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .build())
+                // Sólo reintenta métodos idempotentes: un POST de preferencia u OAuth nunca se repite
+                .setRetryStrategy(new DefaultHttpRequestRetryStrategy(retries, TimeValue.ofMilliseconds(retryInterval.toMillis())))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerInterceptor mercadoPagoCircuitBreaker(@Value("${app.mp.api-uri:https://api.mercadopago.com}") String mpApiUri,
+                                                               @Value("${app.mp.circuit.failure-threshold:5}") int failureThreshold,
+                                                               @Value("${app.mp.circuit.open-for:30s}") Duration openFor) {
+        return new CircuitBreakerInterceptor(URI.create(mpApiUri).getHost(), failureThreshold, openFor);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient, CircuitBreakerInterceptor mercadoPagoCircuitBreaker) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.getInterceptors().add(mercadoPagoCircuitBreaker);
+        return restTemplate;
+    }
+
+    private static HttpRoute route(String uri) {
+        URI parsed = URI.create(uri);
+        boolean secure = "https".equalsIgnoreCase(parsed.getScheme());
+        int port = parsed.getPort() != -1 ? parsed.getPort() : secure ? 443 : 80;
+        return new HttpRoute(new HttpHost(parsed.getScheme(), parsed.getHost(), port), null, secure);
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "bill_seq", "bill",
+            "bill_line_seq", "bill_line"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) return;
+
+        // Las tablas existentes se poblaron con IDENTITY: la secuencia tiene que arrancar después del último id
+        SEQUENCES.forEach((sequence, table) -> {
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), "
+                            + "(SELECT last_value FROM " + sequence + ")))",
+                    Long.class
+            );
+            log.info("Secuencia {} alineada en {}", sequence, value);
+        });
+    }
+
+}
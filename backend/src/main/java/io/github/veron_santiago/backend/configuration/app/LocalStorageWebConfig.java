@@ -0,0 +1,62 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import io.github.veron_santiago.backend.service.implementation.LocalBlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalStorageWebConfig implements WebMvcConfigurer {
+
+    private final LocalBlobStore blobStore;
+
+    public LocalStorageWebConfig(LocalBlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Los nombres son el hash del contenido, así que lo que hay en una URL no cambia nunca
+        registry.addResourceHandler("/files/**")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(false)
+                .addResolver(new BlobResolver(blobStore));
+    }
+
+    private static final class BlobResolver extends AbstractResourceResolver {
+
+        private final LocalBlobStore blobStore;
+
+        BlobResolver(LocalBlobStore blobStore) {
+            this.blobStore = blobStore;
+        }
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+            try {
+                Resource resource = new FileSystemResource(blobStore.resolve(requestPath));
+                return resource.isReadable() ? resource : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+            return null;
+        }
+
+    }
+
+}
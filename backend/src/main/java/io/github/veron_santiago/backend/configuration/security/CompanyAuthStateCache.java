@@ -0,0 +1,54 @@
+package io.github.veron_santiago.backend.configuration.security;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.github.veron_santiago.backend.persistence.projection.CompanyAuthState;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+@Component
+public class CompanyAuthStateCache {
+
+    private final LoadingCache<Long, Optional<CompanyAuthState>> cache;
+
+    public CompanyAuthStateCache(ICompanyRepository companyRepository,
+                                 @Value("${security.jwt.auth-state.ttl:30s}") Duration ttl,
+                                 @Value("${security.jwt.auth-state.max-size:10000}") long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build(CacheLoader.from(companyRepository::findAuthStateById));
+    }
+
+    public boolean isValid(Long companyId, Instant issuedAt) {
+        CompanyAuthState state = cache.getUnchecked(companyId).orElse(null);
+        if (state == null || !state.verified()) return false;
+        if (state.credentialsUpdatedAt() == null) return true;
+        // Tokens emitidos antes del último cambio de contraseña o email quedan revocados; el iat tiene precisión de segundos
+        return issuedAt != null && !issuedAt.isBefore(state.credentialsUpdatedAt().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    public void invalidate(Long companyId) {
+        if (companyId == null) return;
+        cache.invalidate(companyId);
+        // Si hay una transacción abierta se vuelve a invalidar al confirmar, por si otro request recargó el estado viejo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(companyId);
+                }
+            });
+        }
+    }
+
+}
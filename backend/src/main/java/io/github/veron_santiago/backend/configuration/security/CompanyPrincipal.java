@@ -0,0 +1,12 @@
+package io.github.veron_santiago.backend.configuration.security;
+
+import java.security.Principal;
+
+public record CompanyPrincipal(Long companyId, String email, String companyName) implements Principal {
+
+    @Override
+    public String getName() {
+        return String.valueOf(companyId);
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.veron_santiago.backend.configuration.security;
 import io.github.veron_santiago.backend.configuration.security.filter.JwtTokenValidator;
 import io.github.veron_santiago.backend.service.implementation.UserDetailsServiceImpl;
 import io.github.veron_santiago.backend.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -34,12 +35,16 @@ public class SecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final CorsProperties corsProperties;
+    private final CompanyAuthStateCache authStateCache;
+    private final boolean stateless;
 
-    public SecurityConfig(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService, PasswordEncoder passwordEncoder, CorsProperties corsProperties) {
+    public SecurityConfig(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService, PasswordEncoder passwordEncoder, CorsProperties corsProperties, CompanyAuthStateCache authStateCache, @Value("${security.jwt.stateless:true}") boolean stateless) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
         this.corsProperties = corsProperties;
+        this.authStateCache = authStateCache;
+        this.stateless = stateless;
     }
 
     @Bean
@@ -50,10 +55,10 @@ public class SecurityConfig {
                 .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(a -> a
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                        .requestMatchers("/auth/**", "/mp/**").permitAll()
+                        .requestMatchers("/auth/**", "/mp/**", "/files/**").permitAll()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(new JwtTokenValidator(jwtUtil, userDetailsService), BasicAuthenticationFilter.class)
+                .addFilterBefore(new JwtTokenValidator(jwtUtil, userDetailsService, authStateCache, stateless), BasicAuthenticationFilter.class)
                 .build();
     }
 
@@ -76,7 +81,7 @@ public class SecurityConfig {
         c.setAllowedOrigins(corsProperties.getAllowedOrigins());
         c.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS"));
         c.setAllowedHeaders(List.of("*"));
-        c.setExposedHeaders(List.of("Authorization"));
+        c.setExposedHeaders(List.of("Authorization", "Content-Disposition", "ETag"));
         c.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource s = new UrlBasedCorsConfigurationSource();
         s.registerCorsConfiguration("/**", c);
@@ -1,6 +1,8 @@
 package io.github.veron_santiago.backend.configuration.security.filter;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
+import io.github.veron_santiago.backend.configuration.security.CompanyAuthStateCache;
+import io.github.veron_santiago.backend.configuration.security.CompanyPrincipal;
 import io.github.veron_santiago.backend.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,21 +12,27 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 public class JwtTokenValidator extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final CompanyAuthStateCache authStateCache;
+    private final boolean stateless;
 
-    public JwtTokenValidator(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtTokenValidator(JwtUtil jwtUtil, UserDetailsService userDetailsService, CompanyAuthStateCache authStateCache, boolean stateless) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.authStateCache = authStateCache;
+        this.stateless = stateless;
     }
 
     @Override
@@ -44,9 +52,27 @@ public class JwtTokenValidator extends OncePerRequestFilter {
             DecodedJWT decodedJWT = jwtUtil.validateToken(jwtToken);
             String id = decodedJWT.getSubject();
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(id);
+            Long companyId = Long.valueOf(id);
 
-            Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            Collection<? extends GrantedAuthority> authorities;
+            if (stateless) {
+                // El token firmado alcanza; sólo se consulta (con caché) si la compañía sigue vigente
+                if (!authStateCache.isValid(companyId, decodedJWT.getIssuedAtAsInstant())) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                authorities = List.of();
+            } else {
+                authorities = userDetailsService.loadUserByUsername(id).getAuthorities();
+            }
+
+            // Única verificación HMAC del request: los servicios leen la compañía desde este principal
+            CompanyPrincipal principal = new CompanyPrincipal(
+                    companyId,
+                    decodedJWT.getClaim("email").asString(),
+                    jwtUtil.extractCompanyName(decodedJWT)
+            );
+            Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
@@ -19,11 +19,19 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "billNumber", "company_id" }) })
+@Table(
+        uniqueConstraints = { @UniqueConstraint(columnNames = { "billNumber", "company_id" }) },
+        indexes = {
+                @Index(name = "idx_bill_company_issue_number", columnList = "company_id, issue_date, bill_number"),
+                @Index(name = "idx_bill_company_customer_issue", columnList = "company_id, customer_id, issue_date"),
+                @Index(name = "idx_bill_company_total", columnList = "company_id, total")
+        }
+)
 public class Bill {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_seq")
+    @SequenceGenerator(name = "bill_seq", sequenceName = "bill_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -64,7 +72,22 @@ public class Bill {
     @Column(name = "pdf_path")
     private String pdfPath;
 
+    @Column(name = "pdf_hash", length = 64)
+    private String pdfHash;
+
+    // Datos para generar el PDF más tarde igual que si se hubiera generado al crear la factura
+    @Column(name = "payment_link", length = 500)
+    private String paymentLink;
+
+    @Column(name = "logo_path")
+    private String logoPath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pdf_status", length = 10)
+    private PdfStatus pdfStatus;
+
     @OneToMany(mappedBy = "bill", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
     @Column(name = "bill_lines")
     private List<BillLine> billLines;
 
@@ -18,7 +18,8 @@ import java.math.BigDecimal;
 public class BillLine {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_line_seq")
+    @SequenceGenerator(name = "bill_line_seq", sequenceName = "bill_line_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 6)
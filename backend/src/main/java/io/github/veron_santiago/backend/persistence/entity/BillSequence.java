@@ -0,0 +1,32 @@
+package io.github.veron_santiago.backend.persistence.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "bill_sequence")
+public class BillSequence {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Company company;
+
+    @NotNull
+    @Column(name = "last_number", nullable = false)
+    private Long lastNumber;
+
+}
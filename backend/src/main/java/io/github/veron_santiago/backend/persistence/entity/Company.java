@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
 
@@ -15,6 +16,7 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_company_mp_expiration", columnList = "mp_expires_in"))
 public class Company {
 
     @Id
@@ -43,6 +45,9 @@ public class Company {
     @Builder.Default
     private boolean verified = false;
 
+    @Column(name = "credentials_updated_at")
+    private Instant credentialsUpdatedAt;
+
     @Column(name = "mp_access_token")
     private String mpAccessToken;
     @Column(name = "mp_refresh_token")
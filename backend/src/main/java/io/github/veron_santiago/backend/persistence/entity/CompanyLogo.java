@@ -0,0 +1,49 @@
+package io.github.veron_santiago.backend.persistence.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "company_logo")
+public class CompanyLogo {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Company company;
+
+    @NotNull
+    @Column(name = "logo_path", nullable = false)
+    private String logoPath;
+
+    @NotNull
+    @Column(nullable = false, length = 20)
+    private String filter;
+
+    @NotNull
+    @Column(nullable = false, length = 4_000_000)
+    private byte[] data;
+
+    @Column(length = 4_000_000)
+    private byte[] alpha;
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private int height;
+
+}
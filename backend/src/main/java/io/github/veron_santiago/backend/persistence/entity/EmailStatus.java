@@ -0,0 +1,8 @@
+package io.github.veron_santiago.backend.persistence.entity;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
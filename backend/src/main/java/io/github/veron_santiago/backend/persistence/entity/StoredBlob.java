@@ -0,0 +1,42 @@
+package io.github.veron_santiago.backend.persistence.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_blob", indexes = {
+        @Index(name = "idx_stored_blob_location", columnList = "location", unique = true),
+        @Index(name = "idx_stored_blob_ref_count", columnList = "ref_count")
+})
+public class StoredBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @NotBlank
+    @Column(nullable = false, length = 500)
+    private String location;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+}
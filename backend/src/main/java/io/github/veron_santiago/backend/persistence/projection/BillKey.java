@@ -0,0 +1,6 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+import java.time.LocalDate;
+
+public record BillKey(Long id, LocalDate issueDate, Long billNumber) {
+}
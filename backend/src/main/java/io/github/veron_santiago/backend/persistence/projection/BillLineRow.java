@@ -0,0 +1,7 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+
+public record BillLineRow(Bill bill, BillLine line) {
+}
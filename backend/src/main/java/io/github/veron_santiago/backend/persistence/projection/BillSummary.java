@@ -0,0 +1,25 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record BillSummary(Long id,
+                          Long billNumber,
+                          LocalDate issueDate,
+                          LocalDate dueDate,
+                          BigDecimal totalAmount,
+                          String companyName,
+                          String companyEmail,
+                          String companyAddress,
+                          String customerName,
+                          String customerEmail,
+                          String customerAddress,
+                          String pdfPath,
+                          PdfStatus pdfStatus,
+                          Long companyId,
+                          Long customerId,
+                          String lineIds
+) {
+}
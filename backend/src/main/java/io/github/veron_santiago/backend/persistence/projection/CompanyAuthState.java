@@ -0,0 +1,6 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+import java.time.Instant;
+
+public record CompanyAuthState(boolean verified, Instant credentialsUpdatedAt) {
+}
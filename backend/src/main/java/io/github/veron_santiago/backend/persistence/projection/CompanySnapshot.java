@@ -0,0 +1,11 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+public record CompanySnapshot(Long id,
+                              String companyName,
+                              String email,
+                              String address,
+                              String logoPath,
+                              boolean verified,
+                              boolean mpLinked,
+                              Long mpTokenExpiration) {
+}
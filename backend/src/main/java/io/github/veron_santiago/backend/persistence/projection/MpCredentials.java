@@ -0,0 +1,4 @@
+package io.github.veron_santiago.backend.persistence.projection;
+
+public record MpCredentials(String accessToken, String refreshToken, Long expiresAt) {
+}
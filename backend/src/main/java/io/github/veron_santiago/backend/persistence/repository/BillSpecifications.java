@@ -0,0 +1,50 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.presentation.dto.request.BillFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BillSpecifications {
+
+    private BillSpecifications() {
+    }
+
+    public static Specification<Bill> matching(Long companyId, BillFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("company").get("id"), companyId));
+            if (filter == null) return cb.and(predicates.toArray(new Predicate[0]));
+
+            if (filter.from() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("issueDate"), filter.from()));
+            if (filter.to() != null) predicates.add(cb.lessThanOrEqualTo(root.get("issueDate"), filter.to()));
+            if (filter.customerId() != null) predicates.add(cb.equal(root.get("customer").get("id"), filter.customerId()));
+            if (filter.customerName() != null && !filter.customerName().isBlank()) {
+                predicates.add(cb.like(cb.lower(root.get("customerName")), "%" + filter.customerName().trim().toLowerCase() + "%"));
+            }
+            if (filter.minAmount() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("totalAmount"), filter.minAmount()));
+            if (filter.maxAmount() != null) predicates.add(cb.lessThanOrEqualTo(root.get("totalAmount"), filter.maxAmount()));
+            // Sólo las facturas con QR de pago tienen vencimiento
+            if (filter.withQr() != null) {
+                predicates.add(filter.withQr() ? cb.isNotNull(root.get("dueDate")) : cb.isNull(root.get("dueDate")));
+            }
+            if (filter.pdfStatus() != null) predicates.add(cb.equal(root.get("pdfStatus"), filter.pdfStatus()));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Bill> before(LocalDate issueDate, long billNumber) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("issueDate"), issueDate),
+                cb.and(
+                        cb.equal(root.get("issueDate"), issueDate),
+                        cb.lessThan(root.get("billNumber"), billNumber)
+                )
+        );
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface IBillKeyRepository {
+
+    List<BillKey> findKeysNewestFirst(Specification<Bill> spec, int limit);
+
+}
@@ -0,0 +1,34 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+class IBillKeyRepositoryImpl implements IBillKeyRepository {
+
+    private final EntityManager entityManager;
+
+    IBillKeyRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Sólo las columnas del cursor: el resto de la factura se lee después con findSummariesByIdIn
+    @Override
+    public List<BillKey> findKeysNewestFirst(Specification<Bill> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BillKey> query = cb.createQuery(BillKey.class);
+        Root<Bill> root = query.from(Bill.class);
+        query.select(cb.construct(BillKey.class, root.get("id"), root.get("issueDate"), root.get("billNumber")))
+                .where(spec.toPredicate(root, query, cb))
+                // Mismo orden que el índice (company_id, issue_date, bill_number), recorrido hacia atrás
+                .orderBy(cb.desc(root.get("issueDate")), cb.desc(root.get("billNumber")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+}
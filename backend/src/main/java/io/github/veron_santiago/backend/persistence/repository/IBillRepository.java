@@ -1,18 +1,83 @@
 package io.github.veron_santiago.backend.persistence.repository;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.projection.BillLineRow;
+import io.github.veron_santiago.backend.persistence.projection.BillSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface IBillRepository extends JpaRepository<Bill, Long> {
+public interface IBillRepository extends JpaRepository<Bill, Long>, JpaSpecificationExecutor<Bill>, IBillKeyRepository {
+
+    // Una fila por factura con los ids de sus líneas agregados, sin cargar entidades ni colecciones
+    String SUMMARY_SELECT = "SELECT new io.github.veron_santiago.backend.persistence.projection.BillSummary("
+            + "b.id, b.billNumber, b.issueDate, b.dueDate, b.totalAmount, b.companyName, b.companyEmail, b.companyAddress, "
+            + "b.customerName, b.customerEmail, b.customerAddress, b.pdfPath, b.pdfStatus, b.company.id, c.id, "
+            + "LISTAGG(CAST(l.id AS String), ',') WITHIN GROUP (ORDER BY l.id)) "
+            + "FROM Bill b LEFT JOIN b.customer c LEFT JOIN b.billLines l ";
+    String SUMMARY_GROUP = " GROUP BY b.id, b.billNumber, b.issueDate, b.dueDate, b.totalAmount, b.companyName, b.companyEmail, "
+            + "b.companyAddress, b.customerName, b.customerEmail, b.customerAddress, b.pdfPath, b.pdfStatus, b.company.id, c.id "
+            + "ORDER BY b.issueDate DESC, b.billNumber DESC";
+
     List<Bill> findByCompanyId(Long companyId);
     List<Bill> findByCustomerId(Long customerId);
+    @Query(SUMMARY_SELECT + "WHERE b.company.id = :companyId" + SUMMARY_GROUP)
+    List<BillSummary> findSummariesByCompanyId(@Param("companyId") Long companyId);
+    @Query(SUMMARY_SELECT + "WHERE b.id IN :ids" + SUMMARY_GROUP)
+    List<BillSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Bill b WHERE b.company.id = :companyId ORDER BY b.issueDate, b.billNumber")
+    Stream<Bill> streamByCompanyId(@Param("companyId") Long companyId);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new io.github.veron_santiago.backend.persistence.projection.BillLineRow(b, l) "
+            + "FROM Bill b LEFT JOIN b.billLines l WHERE b.company.id = :companyId ORDER BY b.issueDate, b.billNumber, l.id")
+    Stream<BillLineRow> streamWithLinesByCompanyId(@Param("companyId") Long companyId);
     @Query("SELECT b.billNumber FROM Bill b WHERE b.id = :id")
     Long getBillNumberById(@Param("id") Long id);
+    @Query("SELECT COALESCE(MAX(b.billNumber), 0L) FROM Bill b WHERE b.company.id = :companyId")
+    long findMaxBillNumberByCompanyId(@Param("companyId") Long companyId);
+    @Query("SELECT b.pdfPath FROM Bill b WHERE b.company.id = :companyId AND b.pdfPath IS NOT NULL")
+    List<String> findPdfPathsByCompanyId(@Param("companyId") Long companyId);
+    @Query("SELECT b.logoPath FROM Bill b WHERE b.company.id = :companyId AND b.pdfStatus = :pdfStatus AND b.logoPath IS NOT NULL")
+    List<String> findLogoPathsByCompanyIdAndPdfStatus(@Param("companyId") Long companyId, @Param("pdfStatus") PdfStatus pdfStatus);
+    @Query("SELECT b FROM Bill b JOIN FETCH b.company LEFT JOIN FETCH b.billLines WHERE b.id = :id")
+    Optional<Bill> findWithLinesById(@Param("id") Long id);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bill b SET b.pdfPath = :pdfPath, b.pdfHash = :pdfHash, b.pdfStatus = :pdfStatus WHERE b.id = :id")
+    void updatePdf(@Param("id") Long id, @Param("pdfPath") String pdfPath, @Param("pdfHash") String pdfHash, @Param("pdfStatus") PdfStatus pdfStatus);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bill b SET b.pdfPath = :pdfPath, b.pdfHash = :pdfHash, b.pdfStatus = :pdfStatus "
+            + "WHERE b.id = :id AND b.pdfStatus = :expected")
+    int updatePdfIfStatus(@Param("id") Long id, @Param("pdfPath") String pdfPath, @Param("pdfHash") String pdfHash,
+                          @Param("pdfStatus") PdfStatus pdfStatus, @Param("expected") PdfStatus expected);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bill b SET b.pdfHash = :pdfHash WHERE b.id = :id")
+    void updatePdfHash(@Param("id") Long id, @Param("pdfHash") String pdfHash);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bill b SET b.pdfStatus = :pdfStatus WHERE b.id = :id")
+    void updatePdfStatus(@Param("id") Long id, @Param("pdfStatus") PdfStatus pdfStatus);
 }
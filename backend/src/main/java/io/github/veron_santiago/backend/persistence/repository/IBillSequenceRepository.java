@@ -0,0 +1,19 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.BillSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IBillSequenceRepository extends JpaRepository<BillSequence, Long> {
+    @Modifying
+    @Query("UPDATE BillSequence s SET s.lastNumber = s.lastNumber + :count WHERE s.companyId = :companyId")
+    int increment(@Param("companyId") Long companyId, @Param("count") long count);
+    @Query("SELECT s.lastNumber FROM BillSequence s WHERE s.companyId = :companyId")
+    Optional<Long> findLastNumber(@Param("companyId") Long companyId);
+}
@@ -0,0 +1,12 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.CompanyLogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ICompanyLogoRepository extends JpaRepository<CompanyLogo, Long> {
+    Optional<CompanyLogo> findByCompanyIdAndLogoPath(Long companyId, String logoPath);
+}
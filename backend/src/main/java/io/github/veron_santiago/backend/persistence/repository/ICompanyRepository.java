@@ -1,11 +1,18 @@
 package io.github.veron_santiago.backend.persistence.repository;
 
 import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.projection.CompanyAuthState;
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
+import io.github.veron_santiago.backend.persistence.projection.MpCredentials;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +29,26 @@ public interface ICompanyRepository extends JpaRepository<Company, Long> {
     Optional<Long> findIdByCompanyName(@Param("companyName") String companyName);
     @Query("SELECT c.id FROM Company c WHERE c.email = :email")
     Optional<Long> findIdByEmail(@Param("email") String email);
+    @Query("SELECT c.logoPath FROM Company c WHERE c.id = :id")
+    Optional<String> findLogoPathById(@Param("id") Long id);
+    @Query("SELECT new io.github.veron_santiago.backend.persistence.projection.CompanyAuthState(c.verified, c.credentialsUpdatedAt) FROM Company c WHERE c.id = :id")
+    Optional<CompanyAuthState> findAuthStateById(@Param("id") Long id);
+    @Query("SELECT new io.github.veron_santiago.backend.persistence.projection.CompanySnapshot(" +
+            "c.id, c.companyName, c.email, c.address, c.logoPath, c.verified, " +
+            "CASE WHEN c.mpAccessToken IS NOT NULL AND c.mpAccessToken <> '' THEN true ELSE false END, " +
+            "c.mpTokenExpiration) FROM Company c WHERE c.id = :id")
+    Optional<CompanySnapshot> findSnapshotById(@Param("id") Long id);
+    @Query("SELECT new io.github.veron_santiago.backend.persistence.projection.MpCredentials(c.mpAccessToken, c.mpRefreshToken, c.mpTokenExpiration) FROM Company c WHERE c.id = :id")
+    Optional<MpCredentials> findMpCredentialsById(@Param("id") Long id);
+    @Query("SELECT c.id FROM Company c WHERE c.mpRefreshToken IS NOT NULL AND c.mpTokenExpiration < :before " +
+            "AND c.id NOT IN :excluded ORDER BY c.mpTokenExpiration")
+    List<Long> findIdsWithMpTokenExpiringBefore(@Param("before") Long before, @Param("excluded") Collection<Long> excluded, Pageable pageable);
+    @Modifying
+    @Query("UPDATE Company c SET c.mpAccessToken = :accessToken, c.mpRefreshToken = :refreshToken, c.mpTokenExpiration = :expiresAt " +
+            "WHERE c.id = :id AND c.mpRefreshToken = :previousRefreshToken")
+    int updateMpCredentials(@Param("id") Long id,
+                            @Param("accessToken") String accessToken,
+                            @Param("refreshToken") String refreshToken,
+                            @Param("expiresAt") Long expiresAt,
+                            @Param("previousRefreshToken") String previousRefreshToken);
 }
@@ -0,0 +1,27 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.EmailOutbox;
+import io.github.veron_santiago.backend.persistence.entity.EmailStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface IEmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE (e.status = :pending AND e.nextAttemptAt <= :now) " +
+            "OR (e.status = :sending AND e.leaseUntil <= :now) ORDER BY e.id")
+    List<EmailOutbox> findClaimableForUpdate(@Param("pending") EmailStatus pending, @Param("sending") EmailStatus sending,
+                                             @Param("now") Instant now, Pageable pageable);
+    long countByStatus(EmailStatus status);
+}
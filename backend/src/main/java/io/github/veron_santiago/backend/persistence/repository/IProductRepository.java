@@ -2,8 +2,11 @@ package io.github.veron_santiago.backend.persistence.repository;
 
 import io.github.veron_santiago.backend.persistence.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,8 @@ public interface IProductRepository extends JpaRepository<Product, Long> {
     boolean existsByCodeAndCompanyId(String code, Long companyId);
     boolean existsByNameAndCompanyIdAndIdNot(String name, Long companyId, Long id);
     boolean existsByCodeAndCompanyIdAndIdNot(String code, Long companyId, Long id);
+    @Query("SELECT p FROM Product p WHERE p.company.id = :companyId AND (LOWER(p.name) IN :names OR p.code IN :codes)")
+    List<Product> findByCompanyIdAndNamesOrCodes(@Param("companyId") Long companyId,
+                                                 @Param("names") Collection<String> names,
+                                                 @Param("codes") Collection<String> codes);
 }
\ No newline at end of file
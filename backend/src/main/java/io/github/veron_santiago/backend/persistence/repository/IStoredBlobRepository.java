@@ -0,0 +1,45 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.StoredBlob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IStoredBlobRepository extends JpaRepository<StoredBlob, String> {
+    @Query("SELECT s.location FROM StoredBlob s WHERE s.hash = :hash")
+    Optional<String> findLocationByHash(@Param("hash") String hash);
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO StoredBlob (hash, location, contentType, size, refCount, createdAt) VALUES (:hash, :location, :contentType, :size, 1, :createdAt)")
+    int insert(@Param("hash") String hash, @Param("location") String location, @Param("contentType") String contentType,
+               @Param("size") long size, @Param("createdAt") Instant createdAt);
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob s SET s.refCount = s.refCount + 1 WHERE s.hash = :hash")
+    int acquire(@Param("hash") String hash);
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob s SET s.refCount = s.refCount + 1 WHERE s.location = :location")
+    int retain(@Param("location") String location);
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob s SET s.refCount = CASE WHEN s.refCount > :count THEN s.refCount - :count ELSE 0 END WHERE s.location = :location")
+    int release(@Param("location") String location, @Param("count") long count);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM StoredBlob s WHERE s.refCount = 0 ORDER BY s.hash")
+    List<StoredBlob> findUnreferencedForUpdate(Pageable pageable);
+}
@@ -1,19 +1,34 @@
 package io.github.veron_santiago.backend.presentation.controller;
 
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.presentation.dto.request.BillFilter;
 import io.github.veron_santiago.backend.presentation.dto.request.BillRequest;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
 import io.github.veron_santiago.backend.presentation.dto.response.BillDTO;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPageDTO;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPdfDTO;
+import io.github.veron_santiago.backend.service.implementation.BlobDownloadWriter;
+import io.github.veron_santiago.backend.service.interfaces.IBillExportService;
 import io.github.veron_santiago.backend.service.interfaces.IBillService;
 import io.github.veron_santiago.backend.service.interfaces.IPdfService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/bills")
@@ -22,11 +37,21 @@ public class BillController {
     private final IBillService billService;
     private final IPdfService pdfService;
     private final IBillRepository billRepository;
+    private final IBillExportService billExportService;
+    private final BlobDownloadWriter blobDownloadWriter;
+    private final AsyncTaskExecutor exportTaskExecutor;
+    private final Duration exportTimeout;
 
-    public BillController(IBillService billService, IPdfService pdfService, IBillRepository billRepository) {
+    public BillController(IBillService billService, IPdfService pdfService, IBillRepository billRepository, IBillExportService billExportService, BlobDownloadWriter blobDownloadWriter,
+                          @Qualifier("exportTaskExecutor") AsyncTaskExecutor exportTaskExecutor,
+                          @Value("${app.export.timeout:30m}") Duration exportTimeout) {
         this.billService = billService;
         this.pdfService = pdfService;
         this.billRepository = billRepository;
+        this.billExportService = billExportService;
+        this.blobDownloadWriter = blobDownloadWriter;
+        this.exportTaskExecutor = exportTaskExecutor;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping("/{id}")
@@ -35,16 +60,59 @@ public class BillController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<String> getPdfById(@PathVariable Long id, HttpServletRequest request) throws AccessDeniedException {
-        String pdf = pdfService.getPdfByBillId(id, request);
+    public ResponseEntity<BillPdfDTO> getPdfById(@PathVariable Long id, HttpServletRequest request) throws AccessDeniedException {
+        BillPdfDTO pdf = pdfService.getPdfByBillId(id, request);
+        if (pdf.getPdfStatus() == PdfStatus.PENDING) {
+            return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "2").body(pdf);
+        }
         return ResponseEntity.ok().body(pdf);
     }
 
+    @GetMapping("/{id}/pdf/file")
+    public void downloadPdf(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<IPdfService.PdfFile> pdf = pdfService.getPdfFile(id, request);
+        if (pdf.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            return;
+        }
+        IPdfService.PdfFile file = pdf.get();
+        blobDownloadWriter.write(file.location(), file.hash(), file.fileName(), MediaType.APPLICATION_PDF_VALUE, request, response);
+    }
+
     @GetMapping
     public ResponseEntity<List<BillDTO>> getAllBills(HttpServletRequest request) {
         return ResponseEntity.ok(billService.getAllBills(request));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<BillPageDTO> getBillPage(@ModelAttribute BillFilter filter,
+                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                   @RequestParam(value = "size", defaultValue = "20") int size,
+                                                   HttpServletRequest request) {
+        return ResponseEntity.ok(billService.getBillPage(filter, cursor, size, request));
+    }
+
+    @GetMapping("/count")
+    public ResponseEntity<Long> countBills(@ModelAttribute BillFilter filter, HttpServletRequest request) {
+        return ResponseEntity.ok(billService.countBills(filter, request));
+    }
+
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportBills(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                          @RequestParam(value = "lines", defaultValue = "false") boolean lines,
+                                          HttpServletRequest request, HttpServletResponse response) {
+        IBillExportService.Format exportFormat = IBillExportService.Format.from(format);
+        StreamingResponseBody body = billExportService.exportBills(exportFormat, lines, request);
+        response.setContentType(exportFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"facturas." + exportFormat.getExtension() + "\"");
+        // Sólo la exportación se escribe en el pool acotado y con el timeout largo; el resto del async conserva los valores por defecto
+        return new WebAsyncTask<>(exportTimeout.toMillis(), exportTaskExecutor, () -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+    }
+
     @PostMapping
     public ResponseEntity<BillDTO> createBill(@Valid @RequestBody BillRequest billRequest, HttpServletRequest request) throws IOException {
         return ResponseEntity.ok(billService.createBill(billRequest, request));
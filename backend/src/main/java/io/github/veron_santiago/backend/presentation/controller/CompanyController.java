@@ -1,5 +1,6 @@
 package io.github.veron_santiago.backend.presentation.controller;
 
+import io.github.veron_santiago.backend.presentation.dto.auth.AuthResponse;
 import io.github.veron_santiago.backend.presentation.dto.response.CompanyDTO;
 import io.github.veron_santiago.backend.presentation.dto.update.CompanyUpdateAddress;
 import io.github.veron_santiago.backend.presentation.dto.update.CompanyUpdateEmail;
@@ -53,9 +54,8 @@ public class CompanyController {
     }
 
     @PutMapping("/email")
-    public ResponseEntity<Void> updateEmail(@Valid @RequestBody CompanyUpdateEmail dto, HttpServletRequest request){
-        companyService.updateEmail(dto, request);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<AuthResponse> updateEmail(@Valid @RequestBody CompanyUpdateEmail dto, HttpServletRequest request){
+        return ResponseEntity.ok(companyService.updateEmail(dto, request));
     }
 
     @PutMapping("/name")
@@ -71,9 +71,8 @@ public class CompanyController {
     }
 
     @PutMapping("/password")
-    public ResponseEntity<Void> updatePassword(@Valid @RequestBody CompanyUpdatePassword dto, HttpServletRequest request){
-        companyService.updatePassword(dto, request);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<AuthResponse> updatePassword(@Valid @RequestBody CompanyUpdatePassword dto, HttpServletRequest request){
+        return ResponseEntity.ok(companyService.updatePassword(dto, request));
     }
 
     @DeleteMapping
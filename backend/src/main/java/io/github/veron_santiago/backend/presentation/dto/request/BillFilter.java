@@ -0,0 +1,27 @@
+package io.github.veron_santiago.backend.presentation.dto.request;
+
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record BillFilter(@DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                         LocalDate from,
+
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                         LocalDate to,
+
+                         Long customerId,
+
+                         String customerName,
+
+                         BigDecimal minAmount,
+
+                         BigDecimal maxAmount,
+
+                         Boolean withQr,
+
+                         PdfStatus pdfStatus
+) {
+}
@@ -25,7 +25,7 @@ public record BillRequest(@NotBlank(message = "El nombre del cliente no puede es
 
                           @NotNull(message = "Debe haber al menos una línea en la factura")
                           @Size(min = 1, message = "Debe haber al menos una línea en la factura")
-                          @Size(max = 17, message = "No puede haber más de 17 líneas  en la factura")
+                          @Size(max = 1000, message = "No puede haber más de 1000 líneas en la factura")
                           @Valid
                           List<BillLineRequest> billLineRequests,
 
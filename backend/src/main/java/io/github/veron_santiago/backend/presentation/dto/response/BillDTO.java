@@ -1,5 +1,6 @@
 package io.github.veron_santiago.backend.presentation.dto.response;
 
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -35,6 +36,7 @@ public class BillDTO {
     private String customerEmail;
     private String customerAddress;
     private String pdfPath;
+    private PdfStatus pdfStatus;
     @NotNull
     private Long companyId;
     private List<Long> billLines;
@@ -0,0 +1,19 @@
+package io.github.veron_santiago.backend.presentation.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillPageDTO {
+
+    private List<BillDTO> bills;
+    private String nextCursor;
+
+}
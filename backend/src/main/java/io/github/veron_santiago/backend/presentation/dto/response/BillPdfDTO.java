@@ -0,0 +1,22 @@
+package io.github.veron_santiago.backend.presentation.dto.response;
+
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillPdfDTO {
+
+    @NotNull
+    private Long billId;
+    @NotNull
+    private PdfStatus pdfStatus;
+    private String pdfPath;
+
+}
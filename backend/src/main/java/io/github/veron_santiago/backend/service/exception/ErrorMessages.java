@@ -27,7 +27,11 @@ public enum ErrorMessages {
     PDF_GENERATE_ERROR("No se pudo generar el PDF. Intente nuevamente más tarde."),
     PRODUCT_NAME_ALREADY_EXISTS("Ya existe un producto con ese nombre"),
     PRODUCT_CODE_ALREADY_EXISTS("Ya existe un producto con ese código"),
-    QR("Error al generar el QR de pago");
+    QR("Error al generar el QR de pago"),
+    INVALID_CURSOR("El cursor de paginación no es válido"),
+    INVALID_PAGE_SIZE("El tamaño de página debe estar entre 1 y 100"),
+    INVALID_EXPORT_FORMAT("Formato de exportación no soportado. Use ndjson o csv"),
+    UPSTREAM_UNAVAILABLE("Mercado Pago no responde. Intente nuevamente en unos minutos");
 
 
 
@@ -0,0 +1,33 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import io.github.veron_santiago.backend.service.exception.ErrorMessages;
+import io.github.veron_santiago.backend.service.exception.InvalidFieldException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+record BillCursor(LocalDate issueDate, long billNumber) {
+
+    static BillCursor of(BillKey key) {
+        return new BillCursor(key.issueDate(), key.billNumber());
+    }
+
+    static BillCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new BillCursor(LocalDate.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidFieldException(ErrorMessages.INVALID_CURSOR.getMessage());
+        }
+    }
+
+    String encode() {
+        String raw = issueDate + ":" + billNumber;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
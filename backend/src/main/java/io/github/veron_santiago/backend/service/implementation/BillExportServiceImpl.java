@@ -0,0 +1,270 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.projection.BillLineRow;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBillExportService;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+public class BillExportServiceImpl implements IBillExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final IBillRepository billRepository;
+    private final AuthUtil authUtil;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public BillExportServiceImpl(IBillRepository billRepository, AuthUtil authUtil, EntityManager entityManager, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.billRepository = billRepository;
+        this.authUtil = authUtil;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportBills(Format format, boolean includeLines, HttpServletRequest request) {
+        // La compañía se resuelve en el hilo del request; el cuerpo se escribe después en otro hilo
+        Long companyId = authUtil.getAuthenticatedCompanyId(request);
+        return out -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(companyId, format, includeLines, out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    void write(Long companyId, Format format, boolean includeLines, OutputStream out) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            ExportSink sink = format == Format.CSV ? new CsvSink(writer, includeLines) : new NdjsonSink(writer, objectMapper, includeLines);
+            if (includeLines) {
+                try (Stream<BillLineRow> rows = billRepository.streamWithLinesByCompanyId(companyId)) {
+                    writeRows(rows.iterator(), sink, out);
+                }
+            } else {
+                try (Stream<Bill> bills = billRepository.streamByCompanyId(companyId)) {
+                    writeRows(bills.map(bill -> new BillLineRow(bill, null)).iterator(), sink, out);
+                }
+            }
+            sink.finish();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRows(Iterator<BillLineRow> rows, ExportSink sink, OutputStream out) throws IOException {
+        Long currentBillId = null;
+        int count = 0;
+        while (rows.hasNext()) {
+            BillLineRow row = rows.next();
+            if (!Objects.equals(currentBillId, row.bill().getId())) {
+                currentBillId = row.bill().getId();
+                sink.bill(row.bill());
+            }
+            if (row.line() != null) sink.line(row.bill(), row.line());
+
+            // Se vacía el contexto de persistencia y se envía lo escrito para mantener la memoria constante
+            if (++count % FLUSH_EVERY == 0) {
+                entityManager.clear();
+                sink.flush();
+                out.flush();
+            }
+        }
+    }
+
+    private interface ExportSink {
+        void bill(Bill bill) throws IOException;
+        void line(Bill bill, BillLine line) throws IOException;
+        void flush() throws IOException;
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonSink implements ExportSink {
+
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private final boolean includeLines;
+        private boolean open;
+
+        NdjsonSink(Writer writer, ObjectMapper objectMapper, boolean includeLines) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin separador raíz: el generador no antepone un espacio a cada objeto después del primero
+            this.generator.setRootValueSeparator(null);
+            this.includeLines = includeLines;
+        }
+
+        @Override
+        public void bill(Bill bill) throws IOException {
+            closeBill();
+            generator.writeStartObject();
+            generator.writeNumberField("id", bill.getId());
+            generator.writeNumberField("billNumber", bill.getBillNumber());
+            generator.writeStringField("issueDate", Objects.toString(bill.getIssueDate(), null));
+            generator.writeStringField("dueDate", Objects.toString(bill.getDueDate(), null));
+            generator.writeNumberField("totalAmount", bill.getTotalAmount());
+            generator.writeStringField("customerName", bill.getCustomerName());
+            generator.writeStringField("customerEmail", bill.getCustomerEmail());
+            generator.writeStringField("customerAddress", bill.getCustomerAddress());
+            generator.writeStringField("pdfStatus", Objects.toString(bill.getPdfStatus(), null));
+            generator.writeStringField("pdfPath", bill.getPdfPath());
+            if (includeLines) generator.writeArrayFieldStart("lines");
+            open = true;
+        }
+
+        @Override
+        public void line(Bill bill, BillLine line) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("code", line.getCode());
+            generator.writeStringField("name", line.getName());
+            generator.writeNumberField("quantity", line.getQuantity());
+            generator.writeNumberField("price", line.getPrice());
+            generator.writeNumberField("total", line.getTotal());
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            closeBill();
+            generator.close();
+            writer.flush();
+        }
+
+        private void closeBill() throws IOException {
+            if (!open) return;
+            if (includeLines) generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+            open = false;
+        }
+
+    }
+
+    private static final class CsvSink implements ExportSink {
+
+        private static final String BILL_HEADER = "id,billNumber,issueDate,dueDate,totalAmount,customerName,customerEmail,customerAddress,pdfStatus,pdfPath";
+        private static final String LINE_HEADER = ",lineCode,lineName,lineQuantity,linePrice,lineTotal";
+
+        private final Writer writer;
+        private final boolean includeLines;
+        private Bill pending;
+
+        CsvSink(Writer writer, boolean includeLines) throws IOException {
+            this.writer = writer;
+            this.includeLines = includeLines;
+            writer.write(includeLines ? BILL_HEADER + LINE_HEADER : BILL_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void bill(Bill bill) throws IOException {
+            // Con líneas, cada fila repite la factura; una factura sin líneas se escribe igual con las columnas vacías
+            writePending();
+            if (includeLines) {
+                pending = bill;
+            } else {
+                writeBill(bill);
+                writer.write("\r\n");
+            }
+        }
+
+        @Override
+        public void line(Bill bill, BillLine line) throws IOException {
+            pending = null;
+            writeBill(bill);
+            writer.write(',');
+            writer.write(escape(line.getCode()));
+            writer.write(',');
+            writer.write(escape(line.getName()));
+            writer.write(',');
+            writer.write(String.valueOf(line.getQuantity()));
+            writer.write(',');
+            writer.write(line.getPrice().toPlainString());
+            writer.write(',');
+            writer.write(line.getTotal().toPlainString());
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writePending();
+            writer.flush();
+        }
+
+        private void writePending() throws IOException {
+            if (pending == null) return;
+            writeBill(pending);
+            writer.write(",,,,,\r\n");
+            pending = null;
+        }
+
+        private void writeBill(Bill bill) throws IOException {
+            writer.write(String.valueOf(bill.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(bill.getBillNumber()));
+            writer.write(',');
+            writer.write(Objects.toString(bill.getIssueDate(), ""));
+            writer.write(',');
+            writer.write(Objects.toString(bill.getDueDate(), ""));
+            writer.write(',');
+            writer.write(bill.getTotalAmount().toPlainString());
+            writer.write(',');
+            writer.write(escape(bill.getCustomerName()));
+            writer.write(',');
+            writer.write(escape(bill.getCustomerEmail()));
+            writer.write(',');
+            writer.write(escape(bill.getCustomerAddress()));
+            writer.write(',');
+            writer.write(Objects.toString(bill.getPdfStatus(), ""));
+            writer.write(',');
+            writer.write(escape(bill.getPdfPath()));
+        }
+
+        private static String escape(String value) {
+            if (value == null) return "";
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+        }
+
+    }
+
+}
@@ -2,11 +2,9 @@ package io.github.veron_santiago.backend.service.implementation;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
-import io.github.veron_santiago.backend.persistence.entity.Company;
 import io.github.veron_santiago.backend.persistence.entity.Product;
 import io.github.veron_santiago.backend.persistence.repository.IBillLineRepository;
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
-import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillLineDTO;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
@@ -21,25 +19,22 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class BillLineServiceImpl implements IBillLineService {
 
     private final AuthUtil authUtil;
-    private final ICompanyRepository companyRepository;
     private final IBillLineRepository billLineRepository;
     private final IBillRepository billRepository;
     private final BillLineMapper billLineMapper;
 
     public BillLineServiceImpl(AuthUtil authUtil,
-                               ICompanyRepository companyRepository,
                                IBillLineRepository billLineRepository,
                                IBillRepository billRepository,
                                BillLineMapper billLineMapper) {
         this.authUtil = authUtil;
-        this.companyRepository = companyRepository;
         this.billLineRepository = billLineRepository;
         this.billRepository = billRepository;
         this.billLineMapper = billLineMapper;
@@ -47,7 +42,7 @@ public class BillLineServiceImpl implements IBillLineService {
 
 
     @Override
-    public BillLine createBillLine(BillLineRequest billLineRequest, Bill bill, HttpServletRequest request) throws IOException {
+    public BillLine createBillLine(BillLineRequest billLineRequest, Bill bill, Map<String, Product> productsByName, HttpServletRequest request) throws IOException {
         Long companyId = authUtil.getAuthenticatedCompanyId(request);
         if (!bill.getCompany().getId().equals(companyId)) {
             throw new AccessDeniedException(ErrorMessages.ACCESS_DENIED_UPDATE.getMessage());
@@ -58,8 +53,7 @@ public class BillLineServiceImpl implements IBillLineService {
         int quantity = billLineRequest.quantity();
         BigDecimal price = billLineRequest.price();
         BigDecimal total = price.multiply(BigDecimal.valueOf(quantity));
-        Product product = getProductByName(name, request);
-
+        Product product = productsByName.get(name.toLowerCase());
 
         BillLine billLine = BillLine.builder()
                 .code(code)
@@ -93,14 +87,4 @@ public class BillLineServiceImpl implements IBillLineService {
                 .collect(Collectors.toList());
     }
 
-    private Product getProductByName(String name, HttpServletRequest request){
-        Long companyId = authUtil.getAuthenticatedCompanyId(request);
-        Company company = companyRepository.findById(companyId).orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
-        return company.getProducts()
-                                    .stream()
-                                    .filter( product -> product.getName().equalsIgnoreCase(name))
-                                    .findFirst()
-                                    .orElse(null);
-    }
-
 }
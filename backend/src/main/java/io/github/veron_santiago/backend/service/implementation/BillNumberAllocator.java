@@ -0,0 +1,93 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.BillSequence;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.persistence.repository.IBillSequenceRepository;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+public class BillNumberAllocator {
+
+    private final IBillSequenceRepository billSequenceRepository;
+    private final IBillRepository billRepository;
+    private final ICompanyRepository companyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate seedTemplate;
+    private final int blockSize;
+    private final ConcurrentMap<Long, NumberBlock> blocks = new ConcurrentHashMap<>();
+
+    public BillNumberAllocator(IBillSequenceRepository billSequenceRepository,
+                               IBillRepository billRepository,
+                               ICompanyRepository companyRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.bills.number-block-size:1}") int blockSize) {
+        this.billSequenceRepository = billSequenceRepository;
+        this.billRepository = billRepository;
+        this.companyRepository = companyRepository;
+        this.blockSize = Math.max(1, blockSize);
+        // De a uno el incremento se une a la transacción de la factura: el lock de la fila se mantiene hasta
+        // el commit y si la factura falla el número vuelve atrás, sin huecos. Con bloques se reserva aparte
+        // y los números de un bloque que no llegan a usarse quedan como huecos
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(this.blockSize == 1
+                ? TransactionDefinition.PROPAGATION_REQUIRED
+                : TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.seedTemplate = new TransactionTemplate(transactionManager);
+        this.seedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Con bloques de a uno tiene que llamarse dentro de la transacción que guarda la factura
+    public long next(Long companyId) {
+        if (blockSize == 1) return reserve(companyId, 1);
+
+        // Cada nodo reserva un rango y lo sirve desde memoria; los números no usados se pierden al reiniciar
+        NumberBlock block = blocks.computeIfAbsent(companyId, id -> new NumberBlock());
+        synchronized (block) {
+            if (block.next > block.last) {
+                long last = reserve(companyId, blockSize);
+                block.next = last - blockSize + 1;
+                block.last = last;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserve(Long companyId, int count) {
+        return transactionTemplate.execute(status -> {
+            if (billSequenceRepository.increment(companyId, count) == 0) {
+                seed(companyId);
+                billSequenceRepository.increment(companyId, count);
+            }
+            return billSequenceRepository.findLastNumber(companyId).orElseThrow();
+        });
+    }
+
+    // La fila se crea en una transacción aparte para que una carrera con otro request no arruine la de la factura
+    private void seed(Long companyId) {
+        try {
+            seedTemplate.executeWithoutResult(status -> billSequenceRepository.saveAndFlush(
+                    BillSequence.builder()
+                            .company(companyRepository.getReferenceById(companyId))
+                            .lastNumber(billRepository.findMaxBillNumberByCompanyId(companyId))
+                            .build()
+            ));
+        } catch (DataIntegrityViolationException e) {
+            // Otro request creó la fila al mismo tiempo: el UPDATE siguiente la encuentra
+        }
+    }
+
+    private static final class NumberBlock {
+        private long next = 1;
+        private long last = 0;
+    }
+
+}
@@ -0,0 +1,211 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.form.PDVariableText;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+public class BillPdfLayout {
+
+    private static final float MARGIN = 36f;
+    private static final float PADDING = 2f;
+    private static final float TITLE_SIZE = 12f;
+    private static final float TITLE_HEIGHT = TITLE_SIZE + 10f;
+    private static final float PAGE_NUMBER_SIZE = 8f;
+    // Altura de las mayúsculas en Helvetica, para centrar el texto en la fila
+    private static final float CAP_HEIGHT = 0.718f;
+    private static final Map<String, String> HEADERS = Map.of(
+            "code", "Código",
+            "productName", "Producto",
+            "unitPrice", "Precio unitario",
+            "quantity", "Cantidad",
+            "total", "Total"
+    );
+
+    private final PdfTemplate.LineTable table;
+    private final int continuationRows;
+
+    public BillPdfLayout(PdfTemplate pdfTemplate) {
+        this.table = pdfTemplate.getLineTable();
+        float body = table.pageHeight() - 2 * MARGIN - TITLE_HEIGHT - table.rowHeight();
+        this.continuationRows = (int) (body / table.rowHeight());
+        if (continuationRows < 3) throw new IllegalStateException("La plantilla no deja lugar para las páginas de continuación");
+    }
+
+    public boolean fitsFirstPage(int lines) {
+        return lines <= table.rows();
+    }
+
+    // Las líneas se escriben directo en el contenido de cada página, que se cierra antes de pasar a la siguiente
+    public void drawLines(PDDocument document, Bill bill, String billNumber) throws IOException {
+        List<BillLine> lines = bill.getBillLines();
+        List<Integer> pages = paginate(lines.size(), table.rows(), continuationRows);
+        PDFont regular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        PDFont bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int next = 0;
+        for (int p = 0; p < pages.size(); p++) {
+            boolean first = p == 0;
+            boolean last = p == pages.size() - 1;
+            PDPage page = first ? document.getPage(0) : new PDPage(new PDRectangle(table.pageWidth(), table.pageHeight()));
+            if (!first) document.addPage(page);
+
+            try (PDPageContentStream cs = first
+                    ? new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true)
+                    : new PDPageContentStream(document, page)) {
+                float top = first ? table.firstRowTop() : drawHeader(cs, regular, bold, bill.getCompanyName(), billNumber);
+                if (!first) {
+                    summaryRow(cs, bold, top, "Transporte", subtotal);
+                    top -= table.rowHeight();
+                }
+                for (int row = 0; row < pages.get(p); row++, next++) {
+                    BillLine line = lines.get(next);
+                    lineRow(cs, regular, top - row * table.rowHeight(), line);
+                    subtotal = subtotal.add(line.getTotal());
+                }
+                float after = top - pages.get(p) * table.rowHeight();
+                if (!last) summaryRow(cs, bold, after, "Subtotal a transportar", subtotal);
+                else if (!first) summaryRow(cs, bold, after, "Total", subtotal);
+                if (pages.size() > 1) {
+                    cell(cs, regular, PAGE_NUMBER_SIZE, "Página " + (p + 1) + " de " + pages.size(), left(), right() - left(),
+                            PDVariableText.QUADDING_RIGHT, MARGIN / 2);
+                }
+            }
+        }
+    }
+
+    // La primera página usa las filas de la plantilla; cuando no alcanzan, cada página reserva
+    // la última fila para el subtotal y las de continuación además la primera para el transporte
+    static List<Integer> paginate(int lines, int firstPageRows, int otherPageRows) {
+        List<Integer> pages = new ArrayList<>();
+        if (lines <= firstPageRows) {
+            pages.add(lines);
+            return pages;
+        }
+        pages.add(firstPageRows - 1);
+        int remaining = lines - (firstPageRows - 1);
+        int perPage = otherPageRows - 2;
+        while (remaining > 0) {
+            int count = Math.min(perPage, remaining);
+            pages.add(count);
+            remaining -= count;
+        }
+        return pages;
+    }
+
+    private float drawHeader(PDPageContentStream cs, PDFont regular, PDFont bold, String companyName, String billNumber) throws IOException {
+        float left = left();
+        float width = right() - left;
+        float titleBaseline = table.pageHeight() - MARGIN - TITLE_SIZE;
+        cell(cs, bold, TITLE_SIZE, companyName, left, width / 2, PDVariableText.QUADDING_LEFT, titleBaseline);
+        cell(cs, regular, TITLE_SIZE, "Factura N° " + billNumber, left + width / 2, width / 2, PDVariableText.QUADDING_RIGHT, titleBaseline);
+
+        float headerTop = table.pageHeight() - MARGIN - TITLE_HEIGHT;
+        for (PdfTemplate.LineColumn column : table.columns()) {
+            cell(cs, bold, column.fontSize(), HEADERS.get(column.name()), column.x(), column.width(), column.alignment(),
+                    baseline(headerTop, column.fontSize()));
+        }
+        float rowsTop = headerTop - table.rowHeight();
+        rule(cs, rowsTop);
+        return rowsTop;
+    }
+
+    private void lineRow(PDPageContentStream cs, PDFont font, float rowTop, BillLine line) throws IOException {
+        for (PdfTemplate.LineColumn column : table.columns()) {
+            String text = switch (column.name()) {
+                case "code" -> line.getCode();
+                case "productName" -> line.getName();
+                case "unitPrice" -> formatAmount(line.getPrice());
+                case "quantity" -> String.valueOf(line.getQuantity());
+                case "total" -> formatAmount(line.getTotal());
+                default -> null;
+            };
+            cell(cs, font, column.fontSize(), text, column.x(), column.width(), column.alignment(), baseline(rowTop, column.fontSize()));
+        }
+    }
+
+    private void summaryRow(PDPageContentStream cs, PDFont font, float rowTop, String label, BigDecimal amount) throws IOException {
+        PdfTemplate.LineColumn total = column("total");
+        float size = total.fontSize();
+        rule(cs, rowTop);
+        cell(cs, font, size, label, left(), total.x() - left(), PDVariableText.QUADDING_RIGHT, baseline(rowTop, size));
+        cell(cs, font, size, "$ " + formatAmount(amount), total.x(), total.width(), total.alignment(), baseline(rowTop, size));
+    }
+
+    private void cell(PDPageContentStream cs, PDFont font, float size, String text, float x, float width, int alignment, float baseline) throws IOException {
+        if (text == null || text.isEmpty()) return;
+        float available = width - 2 * PADDING;
+        String fitted = fit(font, size, text, available);
+        float textWidth = textWidth(font, size, fitted);
+        float offset = switch (alignment) {
+            case PDVariableText.QUADDING_CENTERED -> (available - textWidth) / 2;
+            case PDVariableText.QUADDING_RIGHT -> available - textWidth;
+            default -> 0;
+        };
+        cs.beginText();
+        cs.setFont(font, size);
+        cs.newLineAtOffset(x + PADDING + offset, baseline);
+        cs.showText(fitted);
+        cs.endText();
+    }
+
+    private void rule(PDPageContentStream cs, float y) throws IOException {
+        cs.setLineWidth(0.5f);
+        cs.moveTo(left(), y);
+        cs.lineTo(right(), y);
+        cs.stroke();
+    }
+
+    // Texto que no entra en la columna se corta con puntos suspensivos en vez de pisar la siguiente
+    private static String fit(PDFont font, float size, String text, float available) throws IOException {
+        if (textWidth(font, size, text) <= available) return text;
+        int end = text.length();
+        while (end > 0 && textWidth(font, size, text.substring(0, end) + "...") > available) end--;
+        return text.substring(0, end) + "...";
+    }
+
+    private static float textWidth(PDFont font, float size, String text) throws IOException {
+        return font.getStringWidth(text) / 1000f * size;
+    }
+
+    private float baseline(float rowTop, float size) {
+        return rowTop - (table.rowHeight() + CAP_HEIGHT * size) / 2;
+    }
+
+    private PdfTemplate.LineColumn column(String name) {
+        return table.columns().stream()
+                .filter(c -> c.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private float left() {
+        return table.columns().getFirst().x();
+    }
+
+    private float right() {
+        PdfTemplate.LineColumn last = table.columns().getLast();
+        return last.x() + last.width();
+    }
+
+    static String formatAmount(BigDecimal amount) {
+        return String.format(Locale.US, "%.2f", amount);
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.service.exception.ErrorMessages;
+import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
+import io.github.veron_santiago.backend.service.interfaces.IPdfService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+
+@Service
+public class BillPdfWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(BillPdfWorker.class);
+
+    private final IBillRepository billRepository;
+    private final IPdfService pdfService;
+    private final MailOutboxService mailOutboxService;
+    private final MailSpool mailSpool;
+    private final ContentStore contentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor pdfTaskExecutor;
+
+    public BillPdfWorker(IBillRepository billRepository, IPdfService pdfService, MailOutboxService mailOutboxService, MailSpool mailSpool, ContentStore contentStore, PlatformTransactionManager transactionManager, @Qualifier("pdfTaskExecutor") TaskExecutor pdfTaskExecutor) {
+        this.billRepository = billRepository;
+        this.pdfService = pdfService;
+        this.mailOutboxService = mailOutboxService;
+        this.mailSpool = mailSpool;
+        this.contentStore = contentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pdfTaskExecutor = pdfTaskExecutor;
+    }
+
+    public void submit(Long billId, boolean includeQr, byte[] qrBytes, boolean sendEmail) {
+        pdfTaskExecutor.execute(() -> render(billId, includeQr, qrBytes, sendEmail));
+    }
+
+    void render(Long billId, boolean includeQr, byte[] qrBytes, boolean sendEmail) {
+        Bill bill;
+        IPdfService.RenderedPdf rendered;
+        try {
+            bill = billRepository.findWithLinesById(billId)
+                    .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.BILL_NOT_FOUND.getMessage()));
+            rendered = pdfService.generateBillPdf(bill, includeQr, qrBytes);
+        } catch (IOException | RuntimeException e) {
+            log.error("No se pudo generar el PDF de la factura {}", billId, e);
+            billRepository.updatePdfStatus(billId, PdfStatus.FAILED);
+            return;
+        }
+        String email = bill.getCustomerEmail();
+        boolean notify = sendEmail && email != null && !email.isEmpty();
+        String spoolPath = notify ? spool(billId, rendered.content()) : null;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                billRepository.updatePdf(billId, rendered.path(), rendered.hash(), PdfStatus.READY);
+                if (notify) {
+                    mailOutboxService.enqueue(email, "Factura de " + bill.getCompanyName(), "PDF: ",
+                            rendered.fileName(), rendered.path(), spoolPath);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Sin fila en el outbox nadie va a borrar el adjunto, y la factura no quedó apuntando al PDF
+            log.error("No se pudo guardar el PDF de la factura {}", billId, e);
+            mailSpool.delete(spoolPath);
+            contentStore.release(rendered.path());
+            billRepository.updatePdfStatus(billId, PdfStatus.FAILED);
+        }
+    }
+
+    private String spool(Long billId, byte[] content) {
+        // Si el spool falla el despachador descarga el PDF desde la URL como antes
+        try {
+            return mailSpool.write(content);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar el PDF de la factura {} para el correo", billId, e);
+            return null;
+        }
+    }
+
+}
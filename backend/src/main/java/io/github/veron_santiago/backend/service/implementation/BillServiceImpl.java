@@ -1,44 +1,54 @@
 package io.github.veron_santiago.backend.service.implementation;
 
 import io.github.veron_santiago.backend.persistence.entity.*;
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import io.github.veron_santiago.backend.persistence.projection.BillSummary;
+import io.github.veron_santiago.backend.persistence.repository.BillSpecifications;
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICustomerRepository;
 import io.github.veron_santiago.backend.persistence.repository.IProductRepository;
+import io.github.veron_santiago.backend.presentation.dto.request.BillFilter;
 import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
 import io.github.veron_santiago.backend.presentation.dto.request.BillRequest;
 import io.github.veron_santiago.backend.presentation.dto.request.CustomerRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillDTO;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPageDTO;
 import io.github.veron_santiago.backend.presentation.dto.response.CustomerDTO;
 import io.github.veron_santiago.backend.service.exception.*;
 import io.github.veron_santiago.backend.service.interfaces.*;
 import io.github.veron_santiago.backend.util.AuthUtil;
 import io.github.veron_santiago.backend.util.mapper.BillMapper;
 import io.github.veron_santiago.backend.util.mapper.CustomerMapper;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigDecimal;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
 public class BillServiceImpl implements IBillService {
 
+    private static final Logger log = LoggerFactory.getLogger(BillServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final IBillRepository billRepository;
     private final ICompanyRepository companyRepository;
     private final BillMapper billMapper;
@@ -46,13 +56,19 @@ public class BillServiceImpl implements IBillService {
     private final ICustomerService customerService;
     private final ICustomerRepository customerRepository;
     private final IBillLineService billLineService;
-    private final IPdfService pdfService;
-    private final JavaMailSender javaMailSender;
+    private final BillPdfWorker billPdfWorker;
+    private final BillNumberAllocator billNumberAllocator;
     private final IProductRepository productRepository;
     private final IMercadoPagoService mercadoPagoService;
     private final QrCodeService qrCodeService;
+    private final TransactionTemplate transactionTemplate;
+    private final LogoCache logoCache;
+    private final ExecutorService billStageExecutor;
+    private final ContentStore contentStore;
+
+    @Value("${app.pdf.lazy-render:false}") private boolean lazyRender;
 
-    public BillServiceImpl(IBillRepository billRepository, ICompanyRepository companyRepository, BillMapper billMapper, AuthUtil authUtil, ICustomerService customerService, ICustomerRepository customerRepository, IBillLineService billLineService, IPdfService pdfService, JavaMailSender javaMailSender, IProductRepository productRepository, IMercadoPagoService mercadoPagoService, QrCodeService qrCodeService) {
+    public BillServiceImpl(IBillRepository billRepository, ICompanyRepository companyRepository, BillMapper billMapper, AuthUtil authUtil, ICustomerService customerService, ICustomerRepository customerRepository, IBillLineService billLineService, BillPdfWorker billPdfWorker, BillNumberAllocator billNumberAllocator, IProductRepository productRepository, IMercadoPagoService mercadoPagoService, QrCodeService qrCodeService, PlatformTransactionManager transactionManager, LogoCache logoCache, @Qualifier("billStageExecutor") ExecutorService billStageExecutor, ContentStore contentStore) {
         this.billRepository = billRepository;
         this.companyRepository = companyRepository;
         this.billMapper = billMapper;
@@ -60,36 +76,69 @@ public class BillServiceImpl implements IBillService {
         this.customerService = customerService;
         this.customerRepository = customerRepository;
         this.billLineService = billLineService;
-        this.pdfService = pdfService;
-        this.javaMailSender = javaMailSender;
+        this.billPdfWorker = billPdfWorker;
+        this.billNumberAllocator = billNumberAllocator;
         this.productRepository = productRepository;
         this.mercadoPagoService = mercadoPagoService;
         this.qrCodeService = qrCodeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.logoCache = logoCache;
+        this.billStageExecutor = billStageExecutor;
+        this.contentStore = contentStore;
     }
 
 
     @Override
     public BillDTO createBill(BillRequest billRequest, HttpServletRequest request) throws IOException {
+        long start = System.nanoTime();
+        StageTimings timings = new StageTimings();
 
         Company company = getCompany(request);
 
-        verifyDuplicateProductOrCode(billRequest, company.getId());
+        Map<String, Product> productsByName = resolveProducts(billRequest, company.getId());
 
         AtomicReference<BigDecimal> total = calculateTotal(billRequest);
+        timings.record("validacion", start);
+
+        // Sin correo el PDF se genera recién cuando alguien lo pide; el correo lo necesita ya
+        boolean deferPdf = lazyRender && !billRequest.sendEmail();
+
+        // Link de pago + QR y logo corren en hilos virtuales mientras se busca el cliente.
+        // Al hilo sólo le llegan valores: la entidad pertenece a la sesión de este pedido
+        Long companyId = company.getId();
+        String companyName = company.getCompanyName();
+        Future<PaymentQr> payment = billRequest.includeQr()
+                ? billStageExecutor.submit(() -> timings.time("pago", () -> {
+                    String paymentLink = mercadoPagoService.createPaymentLink(companyId, companyName, total.get());
+                    return new PaymentQr(paymentLink, deferPdf ? null : qrCodeService.generateQrCode(paymentLink, 200, 200));
+                }))
+                : null;
+        if (!deferPdf) prefetchLogo(company, timings);
 
-        byte[] qrBytes = null;
-        if (billRequest.includeQr()){
-            String paymentLink = mercadoPagoService.createPaymentLink(company, total.get());
-            qrBytes = qrCodeService.generateQrCode(paymentLink, 200, 200);
+        try {
+            return persistBill(billRequest, request, company, productsByName, total.get(), payment, deferPdf, timings, start);
+        } finally {
+            // Si algo falló antes de esperarlo, el pedido a Mercado Pago ya no sirve
+            if (payment != null) payment.cancel(true);
         }
+    }
 
+    private BillDTO persistBill(BillRequest billRequest, HttpServletRequest request, Company company, Map<String, Product> productsByName,
+                                BigDecimal total, Future<PaymentQr> payment, boolean deferPdf, StageTimings timings, long start) {
+        long stage = System.nanoTime();
         Customer customer = getCustomerOrCreate(company, billRequest, request);
+        timings.record("cliente", stage);
+
+        // El link de pago se espera antes de tomar el número y abrir la transacción: si Mercado Pago
+        // falla no se consume un número y no queda una conexión ociosa esperando la respuesta
+        stage = System.nanoTime();
+        PaymentQr paymentQr = payment == null ? null : await(payment);
+        timings.record("espera_pago", stage);
 
         Bill bill = Bill.builder()
-                .billNumber((long) (company.getBills().size() + 1))
                 .issueDate(LocalDate.now())
                 .dueDate( billRequest.includeQr() ? LocalDate.now().plusDays(30) : null)
-                .totalAmount(total.get())
+                .totalAmount(total)
                 .companyName(company.getCompanyName())
                 .companyEmail(company.getEmail())
                 .companyAddress(company.getAddress())
@@ -98,39 +147,62 @@ public class BillServiceImpl implements IBillService {
                 .customerAddress(billRequest.customerAddress())
                 .company(company)
                 .customer(customer)
+                .paymentLink(paymentQr == null ? null : paymentQr.link())
+                .logoPath(deferPdf ? company.getLogoPath() : null)
+                .pdfStatus(deferPdf ? PdfStatus.DEFERRED : PdfStatus.PENDING)
                 .build();
 
-        Bill saved = billRepository.save(bill);
+        // Factura y líneas en una sola transacción: los inserts se envían juntos en batch al hacer commit
+        long persistStart = System.nanoTime();
+        Bill saved = transactionTemplate.execute(status -> {
+            // El número se toma dentro de la transacción: si la factura no se guarda, tampoco se consume
+            long numberStart = System.nanoTime();
+            bill.setBillNumber(billNumberAllocator.next(company.getId()));
+            timings.record("numero", numberStart);
+            Bill persisted = billRepository.save(bill);
+            List<BillLine> billLines = createBillLines(billRequest, persisted, productsByName, request);
+            persisted.setBillLines(new ArrayList<>(billLines));
+            // El logo tiene que seguir guardado hasta que se genere el PDF aunque la compañía lo cambie
+            if (deferPdf) contentStore.retain(persisted.getLogoPath());
+            return persisted;
+        });
+        timings.record("persistencia", persistStart);
 
-        List<BillLine> billLines = createBillLines(billRequest, saved, request);
-        saved.setBillLines(new ArrayList<>(billLines));
-        saved = billRepository.save(saved);
-
-        String path = pdfService.generateBillPdf(saved, request, billRequest.includeQr(), qrBytes);
-        saved.setPdfPath(path);
-        Bill finalSaved = billRepository.save(saved);
+        if (!deferPdf) {
+            byte[] qrBytes = paymentQr == null ? null : paymentQr.qr();
+            billPdfWorker.submit(saved.getId(), billRequest.includeQr(), qrBytes, billRequest.sendEmail());
+        }
 
-        String email = finalSaved.getCustomerEmail();
-        if (billRequest.sendEmail() && email != null && !email.isEmpty()){
-            String pdfUrl = pdfService.getPdfByBillId(saved.getId(), request);
+        log.info("Factura {} de la compañía {} creada en {} ms [{}]", saved.getBillNumber(), company.getId(), (System.nanoTime() - start) / 1_000_000,
+                timings.format("validacion", "pago", "logo", "cliente", "espera_pago", "persistencia", "numero"));
+        return billMapper.billToBillDTO(saved, new BillDTO());
+    }
 
-            byte[] pdf;
-            String filename;
+    private void prefetchLogo(Company company, StageTimings timings) {
+        Long companyId = company.getId();
+        String logoPath = company.getLogoPath();
+        if (logoPath == null || logoPath.isBlank()) return;
+        // Deja el logo en cache para el worker del PDF; si falla, el worker lo vuelve a intentar
+        billStageExecutor.submit(() -> timings.time("logo", () -> {
             try {
-                URI uri = new URI(pdfUrl);
-                try (InputStream in = uri.toURL().openStream()) {
-                    pdf = in.readAllBytes();
-                }
-                String p = uri.getPath();
-                filename = java.net.URLDecoder.decode(p.substring(p.lastIndexOf('/') + 1), java.nio.charset.StandardCharsets.UTF_8);
-            } catch (URISyntaxException | IOException e) {
-                throw new InternalServerException("Error al enviar el PDF");
+                return logoCache.get(companyId, logoPath);
+            } catch (IOException e) {
+                log.warn("No se pudo precargar el logo de la compañía {}", companyId, e);
+                return null;
             }
+        }));
+    }
 
-            sendPdfToEmail(email, pdf, company.getCompanyName(), finalSaved.getId(), filename);
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerException(ErrorMessages.QR.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new InternalServerException(ErrorMessages.QR.getMessage());
         }
-
-        return billMapper.billToBillDTO(finalSaved, new BillDTO());
     }
 
     @Override
@@ -145,9 +217,41 @@ public class BillServiceImpl implements IBillService {
     @Override
     public List<BillDTO> getAllBills(HttpServletRequest request) {
         Long companyId = authUtil.getAuthenticatedCompanyId(request);
-        List<Bill> bills = billRepository.findByCompanyId(companyId);
-        return bills.stream()
-                .map( bill -> billMapper.billToBillDTO(bill, new BillDTO()) )
+        return toDTOs(billRepository.findSummariesByCompanyId(companyId));
+    }
+
+    @Override
+    public BillPageDTO getBillPage(BillFilter filter, String cursor, int size, HttpServletRequest request) {
+        Long companyId = authUtil.getAuthenticatedCompanyId(request);
+        if (size < 1 || size > MAX_PAGE_SIZE) throw new InvalidFieldException(ErrorMessages.INVALID_PAGE_SIZE.getMessage());
+
+        Specification<Bill> spec = BillSpecifications.matching(companyId, filter);
+        if (cursor != null && !cursor.isBlank()) {
+            BillCursor after = BillCursor.decode(cursor);
+            spec = spec.and(BillSpecifications.before(after.issueDate(), after.billNumber()));
+        }
+
+        // Se pide una fila de más para saber si hay otra página sin ejecutar un COUNT
+        List<BillKey> keys = billRepository.findKeysNewestFirst(spec, size + 1);
+        boolean hasMore = keys.size() > size;
+        if (hasMore) keys = keys.subList(0, size);
+
+        List<BillDTO> dtos = keys.isEmpty()
+                ? new ArrayList<>()
+                : toDTOs(billRepository.findSummariesByIdIn(keys.stream().map(BillKey::id).toList()));
+        String nextCursor = hasMore ? BillCursor.of(keys.getLast()).encode() : null;
+        return new BillPageDTO(dtos, nextCursor);
+    }
+
+    @Override
+    public long countBills(BillFilter filter, HttpServletRequest request) {
+        Long companyId = authUtil.getAuthenticatedCompanyId(request);
+        return billRepository.count(BillSpecifications.matching(companyId, filter));
+    }
+
+    private List<BillDTO> toDTOs(List<BillSummary> summaries) {
+        return summaries.stream()
+                .map(billMapper::billSummaryToBillDTO)
                 .collect(Collectors.toList());
     }
 
@@ -156,9 +260,10 @@ public class BillServiceImpl implements IBillService {
         return companyRepository.findById(companyId)
                 .orElseThrow( () -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
     }
-    private void verifyDuplicateProductOrCode(BillRequest billRequest, Long companyId){
+    private Map<String, Product> resolveProducts(BillRequest billRequest, Long companyId){
         Set<String> names = new HashSet<>();
         Set<String> codes = new HashSet<>();
+        List<String> requestedCodes = new ArrayList<>();
         for (BillLineRequest line : billRequest.billLineRequests()) {
             String name = line.name().toLowerCase();
             String code = line.code();
@@ -168,25 +273,24 @@ public class BillServiceImpl implements IBillService {
             if (code != null && !codes.add(code.toLowerCase())){
                 throw new InvalidFieldException(ErrorMessages.DUPLICATE_CODE_IN_BILL.getMessage());
             }
-            Product product = productRepository.findByCodeAndCompanyId(code, companyId).orElse(null);
-            if (code != null && product != null && !product.getName().equalsIgnoreCase(name)){
+            if (code != null) requestedCodes.add(code);
+        }
+
+        Map<String, Product> productsByName = new HashMap<>();
+        Map<String, Product> productsByCode = new HashMap<>();
+        for (Product product : productRepository.findByCompanyIdAndNamesOrCodes(companyId, names, requestedCodes)) {
+            productsByName.putIfAbsent(product.getName().toLowerCase(), product);
+            if (product.getCode() != null) productsByCode.put(product.getCode(), product);
+        }
+
+        for (BillLineRequest line : billRequest.billLineRequests()) {
+            String code = line.code();
+            Product product = code != null ? productsByCode.get(code) : null;
+            if (product != null && !product.getName().equalsIgnoreCase(line.name())){
                 throw new ResourceConflictException("El código " + code + " ya está en uso.\nAsignado a: " + product.getName());
             }
         }
-    }
-    private void sendPdfToEmail(String email, byte[] pdf, String companyName, Long billId, String filename){
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(email);
-            helper.setSubject("Factura de " + companyName);
-            helper.setText("PDF: ");
-            ByteArrayResource resource = new ByteArrayResource(pdf);
-            helper.addAttachment(filename, resource);
-            javaMailSender.send(message);
-        } catch (MessagingException | MailException e) {
-            throw new InternalServerException("Error al enviar el correo: " + e.getMessage());
-        }
+        return productsByName;
     }
     private AtomicReference<BigDecimal> calculateTotal(BillRequest billRequest){
         AtomicReference<BigDecimal> total = new AtomicReference<>(BigDecimal.ZERO);
@@ -210,12 +314,12 @@ public class BillServiceImpl implements IBillService {
                             .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND.getMessage()));
                 });
     }
-    private List<BillLine> createBillLines(BillRequest billRequest, Bill bill, HttpServletRequest request){
+    private List<BillLine> createBillLines(BillRequest billRequest, Bill bill, Map<String, Product> productsByName, HttpServletRequest request){
         return billRequest.billLineRequests()
                 .stream()
                 .map( billLineRequest -> {
                     try {
-                        return billLineService.createBillLine(billLineRequest, bill, request);
+                        return billLineService.createBillLine(billLineRequest, bill, productsByName, request);
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
@@ -223,4 +327,31 @@ public class BillServiceImpl implements IBillService {
                 .toList();
     }
 
+    private record PaymentQr(String link, byte[] qr) {}
+
+    private static final class StageTimings {
+
+        private final Map<String, Long> millis = new ConcurrentHashMap<>();
+
+        void record(String stage, long startNanos) {
+            millis.put(stage, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        <T> T time(String stage, Callable<T> task) throws Exception {
+            long start = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                record(stage, start);
+            }
+        }
+
+        String format(String... stages) {
+            return Arrays.stream(stages)
+                    .map(stage -> stage + "=" + (millis.containsKey(stage) ? millis.get(stage) + "ms" : "-"))
+                    .collect(Collectors.joining(" "));
+        }
+
+    }
+
 }
@@ -0,0 +1,141 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class BlobDownloadWriter {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Contenido direccionado por hash: la misma URL nunca cambia, pero es privado de cada compañía
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable().getHeaderValue();
+    private static final Range UNSATISFIABLE = new Range(-1, -1);
+
+    private final IBlobStore blobStore;
+
+    public BlobDownloadWriter(IBlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    public void write(String location, String hash, String fileName, String contentType,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Path file = blobStore.localFile(location).orElse(null);
+        byte[] content = file == null ? blobStore.read(location) : null;
+        long length = file != null ? Files.size(file) : content.length;
+
+        // If-Range con otra versión: se ignora el Range y se manda el archivo completo
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        Range range = ifRange == null || ifRange.equals(etag) ? parseRange(request.getHeader(HttpHeaders.RANGE), length) : null;
+        if (range == UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        long start = range == null ? 0 : range.start();
+        long count = range == null ? length : range.end() - range.start() + 1;
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) return;
+
+        if (file != null) {
+            sendFile(file, start, count, request, response);
+        } else {
+            response.getOutputStream().write(content, (int) start, (int) count);
+        }
+    }
+
+    private void sendFile(Path file, long start, long count, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Tomcat con NIO manda el archivo con sendfile al terminar el request, sin pasar por el heap
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) throw new IOException("Archivo truncado: " + file);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) return false;
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    // Sólo un rango por pedido; rangos múltiples o mal formados se responden con el archivo completo
+    static Range parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) return null;
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return UNSATISFIABLE;
+                return new Range(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= length) return UNSATISFIABLE;
+            return new Range(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    record Range(long start, long end) {}
+
+}
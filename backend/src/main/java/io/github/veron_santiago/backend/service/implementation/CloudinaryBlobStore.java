@@ -0,0 +1,72 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.cloudinary.Cloudinary;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryBlobStore implements IBlobStore {
+
+    private final Cloudinary cloudinary;
+    private final RemoteFileClient remoteFileClient;
+
+    public CloudinaryBlobStore(Cloudinary cloudinary, RemoteFileClient remoteFileClient) {
+        this.cloudinary = cloudinary;
+        this.remoteFileClient = remoteFileClient;
+    }
+
+    @Override
+    public String put(String key, byte[] content, String contentType) throws IOException {
+        int slash = key.lastIndexOf('/');
+        String name = key.substring(slash + 1);
+        boolean image = contentType != null && contentType.startsWith("image/");
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("folder", key.substring(0, slash + 1));
+        // Cloudinary agrega la extensión a las imágenes; los archivos raw la conservan en el public_id
+        if (image) {
+            int dot = name.lastIndexOf('.');
+            map.put("public_id", dot > 0 ? name.substring(0, dot) : name);
+        } else {
+            map.put("public_id", name);
+            map.put("resource_type", "raw");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> res = cloudinary.uploader().upload(content, map);
+        return res.get("secure_url").toString();
+    }
+
+    @Override
+    public byte[] read(String location) throws IOException {
+        return remoteFileClient.download(location);
+    }
+
+    @Override
+    public Optional<Path> localFile(String location) {
+        return Optional.empty();
+    }
+
+    // https://res.cloudinary.com/<cloud>/<tipo>/upload/v123/<carpeta>/<public_id>
+    @Override
+    public void delete(String location) throws IOException {
+        int upload = location.indexOf("/upload/");
+        if (upload < 0) return;
+        String resourceType = location.substring(location.lastIndexOf('/', upload - 1) + 1, upload);
+        String publicId = location.substring(upload + "/upload/".length()).replaceFirst("^v\\d+/", "");
+        if (!resourceType.equals("raw")) {
+            int dot = publicId.lastIndexOf('.');
+            if (dot > publicId.lastIndexOf('/')) publicId = publicId.substring(0, dot);
+        }
+        cloudinary.uploader().destroy(publicId, Map.of("resource_type", resourceType, "invalidate", true));
+    }
+
+}
@@ -1,6 +1,10 @@
 package io.github.veron_santiago.backend.service.implementation;
 
+import io.github.veron_santiago.backend.configuration.security.CompanyAuthStateCache;
 import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.presentation.dto.auth.AuthCreateCompany;
 import io.github.veron_santiago.backend.presentation.dto.auth.AuthResponse;
@@ -15,22 +19,29 @@ import io.github.veron_santiago.backend.service.exception.ObjectNotFoundExceptio
 import io.github.veron_santiago.backend.service.exception.ResourceConflictException;
 import io.github.veron_santiago.backend.service.interfaces.ICompanyService;
 import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.CompanySnapshotCache;
 import io.github.veron_santiago.backend.util.JwtUtil;
 import io.github.veron_santiago.backend.util.mapper.CompanyMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.transaction.Transactional;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CompanyServiceImpl implements ICompanyService {
@@ -38,24 +49,33 @@ public class CompanyServiceImpl implements ICompanyService {
     @Value("${app.api.uri}") private String apiUri;
 
     private final ICompanyRepository companyRepository;
-    private final JavaMailSender javaMailSender;
+    private final MailOutboxService mailOutboxService;
     private final CompanyMapper companyMapper;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     private final AuthUtil authUtil;
-    private final CloudinaryService cloudinaryService;
+    private final ContentStore contentStore;
+    private final IBillRepository billRepository;
+    private final LogoCache logoCache;
+    private final CompanyAuthStateCache authStateCache;
+    private final CompanySnapshotCache snapshotCache;
 
-    public CompanyServiceImpl(ICompanyRepository companyRepository, JavaMailSender javaMailSender, CompanyMapper companyMapper, JwtUtil jwtUtil, PasswordEncoder passwordEncoder, AuthUtil authUtil, CloudinaryService cloudinaryService) {
+    public CompanyServiceImpl(ICompanyRepository companyRepository, MailOutboxService mailOutboxService, CompanyMapper companyMapper, JwtUtil jwtUtil, PasswordEncoder passwordEncoder, AuthUtil authUtil, ContentStore contentStore, IBillRepository billRepository, LogoCache logoCache, CompanyAuthStateCache authStateCache, CompanySnapshotCache snapshotCache) {
         this.companyRepository = companyRepository;
-        this.javaMailSender = javaMailSender;
+        this.mailOutboxService = mailOutboxService;
         this.companyMapper = companyMapper;
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
         this.authUtil = authUtil;
-        this.cloudinaryService = cloudinaryService;
+        this.contentStore = contentStore;
+        this.billRepository = billRepository;
+        this.logoCache = logoCache;
+        this.authStateCache = authStateCache;
+        this.snapshotCache = snapshotCache;
     }
 
     @Override
+    @Transactional
     public AuthResponse createCompany(AuthCreateCompany authCreateCompany) {
         String companyName = authCreateCompany.companyName();
         String password = authCreateCompany.password();
@@ -94,6 +114,7 @@ public class CompanyServiceImpl implements ICompanyService {
         if (Objects.equals(company.getAddress(), address)) throw new InvalidFieldException(ErrorMessages.EMAIL_SAME_AS_CURRENT.getMessage());
         company.setAddress(address);
         Company savedCompany = companyRepository.save(company);
+        snapshotCache.invalidate(company.getId());
         return companyMapper.companyToCompanyDTO(savedCompany, new CompanyDTO());
     }
 
@@ -108,11 +129,13 @@ public class CompanyServiceImpl implements ICompanyService {
 
         company.setCompanyName(name);
         Company savedCompany = companyRepository.save(company);
+        snapshotCache.invalidate(company.getId());
         return companyMapper.companyToCompanyDTO(savedCompany, new CompanyDTO());
     }
 
     @Override
-    public void updateEmail(CompanyUpdateEmail companyUpdateEmail, HttpServletRequest request) {
+    @Transactional
+    public AuthResponse updateEmail(CompanyUpdateEmail companyUpdateEmail, HttpServletRequest request) {
         Company company = authUtil.getCompanyByRequest(request);
         String currentEmail = company.getEmail();
         String newEmail = companyUpdateEmail.email().toLowerCase();
@@ -123,30 +146,33 @@ public class CompanyServiceImpl implements ICompanyService {
         if (existingCompany != null) throw new ResourceConflictException(ErrorMessages.EMAIL_ALREADY_IN_USE.getMessage());
 
         company.setEmail(newEmail);
+        company.setCredentialsUpdatedAt(Instant.now());
         companyRepository.save(company);
+        authStateCache.invalidate(company.getId());
+        snapshotCache.invalidate(company.getId());
 
-        SimpleMailMessage notification = new SimpleMailMessage();
-        notification.setTo(currentEmail);
-        notification.setSubject("Tu email ha sido cambiado");
-        notification.setText("Tu dirección de correo fue actualizada a: " + newEmail);
-        javaMailSender.send(notification);
+        mailOutboxService.enqueue(currentEmail, "Tu email ha sido cambiado", "Tu dirección de correo fue actualizada a: " + newEmail);
+        return renewSession(company, request, "Email actualizado con éxito. Se ha enviado una notificación al email anterior.");
     }
 
     @Override
-    public void updatePassword(CompanyUpdatePassword updatePassword, HttpServletRequest request) {
+    public AuthResponse updatePassword(CompanyUpdatePassword updatePassword, HttpServletRequest request) {
         Company company = authUtil.getCompanyByRequest(request);
         String actualP = updatePassword.actualPassword();
         String newP = updatePassword.newPassword();
         if (!passwordEncoder.matches(actualP, company.getPassword())) throw new BadCredentialsException(ErrorMessages.INCORRECT_CURRENT_PASSWORD.getMessage());
         if (passwordEncoder.matches(newP, company.getPassword())) throw new InvalidFieldException(ErrorMessages.PASSWORD_SAME_AS_CURRENT.getMessage());
         company.setPassword(passwordEncoder.encode(newP));
+        company.setCredentialsUpdatedAt(Instant.now());
         companyRepository.save(company);
+        authStateCache.invalidate(company.getId());
+        snapshotCache.invalidate(company.getId());
+        return renewSession(company, request, "Contraseña actualizada con éxito.");
     }
 
     @Override
     public String getLogo(HttpServletRequest request) {
-        Company company = authUtil.getCompanyByRequest(request);
-        String logoPath = company.getLogoPath();
+        String logoPath = authUtil.getCompanySnapshot(request).logoPath();
         return logoPath == null || logoPath.isBlank() ? null : logoPath;
     }
 
@@ -157,23 +183,51 @@ public class CompanyServiceImpl implements ICompanyService {
             throw new IllegalArgumentException("Sólo se aceptan archivos PNG y JPG");
         }
 
+        BufferedImage image;
+        try (InputStream in = file.getInputStream()) {
+            image = ImageIO.read(in);
+        }
+        if (image == null) throw new IllegalArgumentException("No se pudo leer la imagen");
+        EncodedLogo logo = logoCache.prepare(image);
+
         Company company = authUtil.getCompanyByRequest(request);
         Long companyId = company.getId();
-        String url = "logos/" + companyId + "/";
-
-        UUID uuid = UUID.randomUUID();
-        String name = uuid.toString().substring(0, 13);
-
-        String path = cloudinaryService.uploadField(file, url, name, false);
-        company.setLogoPath(path);
-        companyRepository.save(company);
+        String contentType = extension.equals("png") ? "image/png" : "image/jpeg";
+        String path = contentStore.store("logos", file.getBytes(), extension, contentType).location();
+
+        String previous = company.getLogoPath();
+        try {
+            logoCache.store(company, path, logo);
+            company.setLogoPath(path);
+            companyRepository.save(company);
+        } catch (RuntimeException e) {
+            // La compañía no quedó apuntando al logo nuevo: la referencia que sumó store() sobra
+            contentStore.release(path);
+            throw e;
+        }
+        if (!Objects.equals(previous, path)) logoCache.invalidate(previous);
+        snapshotCache.invalidate(companyId);
+        // Se libera después de guardar: ante una falla sobra una referencia, nunca falta
+        contentStore.release(previous);
     }
 
     @Override
+    @Transactional
     public void deleteCompany(HttpServletRequest request) {
         Long companyId = authUtil.getAuthenticatedCompanyId(request);
-        if (companyRepository.existsById(companyId)) companyRepository.deleteById(companyId);
-        else throw new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage());
+        if (!companyRepository.existsById(companyId)) throw new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage());
+        String logoPath = snapshotCache.get(companyId).map(CompanySnapshot::logoPath).orElse(null);
+        Map<String, Long> pdfPaths = billRepository.findPdfPathsByCompanyId(companyId).stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        // Las facturas diferidas retienen el logo con el que se crearon hasta generar el PDF
+        Map<String, Long> deferredLogos = billRepository.findLogoPathsByCompanyIdAndPdfStatus(companyId, PdfStatus.DEFERRED).stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        companyRepository.deleteById(companyId);
+        contentStore.release(logoPath);
+        pdfPaths.forEach(contentStore::release);
+        deferredLogos.forEach(contentStore::release);
+        authStateCache.invalidate(companyId);
+        snapshotCache.invalidate(companyId);
     }
 
     @Override
@@ -191,23 +245,27 @@ public class CompanyServiceImpl implements ICompanyService {
 
         company.setVerified(true);
         companyRepository.save(company);
+        authStateCache.invalidate(company.getId());
+        snapshotCache.invalidate(company.getId());
         return true;
     }
 
     @Override
     public boolean hasAccessToken(HttpServletRequest request) {
-        Company company = authUtil.getCompanyByRequest(request);
-        String accessToken = company.getMpAccessToken();
-        return accessToken != null && !accessToken.isEmpty();
+        return authUtil.getCompanySnapshot(request).mpLinked();
+    }
+
+    // El cambio revoca todos los tokens anteriores, incluido el de quien lo hizo: se le entrega uno nuevo
+    private AuthResponse renewSession(Company company, HttpServletRequest request, String message){
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        String currentToken = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+        String token = currentToken == null ? null : jwtUtil.renewToken(company, currentToken);
+        return new AuthResponse(company.getCompanyName(), message, token, true);
     }
 
     private void sendVerificationEmail(String email, String verificationToken){
         String verificationUrl = apiUri + "/auth/verify?token=" + verificationToken;
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setSubject("Verificación de Correo Electrónico");
-        message.setText("Haz click en el siguiente enlace para verificar tu correo: " + verificationUrl);
-        javaMailSender.send(message);
+        mailOutboxService.enqueue(email, "Verificación de Correo Electrónico", "Haz click en el siguiente enlace para verificar tu correo: " + verificationUrl);
     }
 
 }
@@ -0,0 +1,74 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.repository.IStoredBlobRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.github.veron_santiago.backend.util.ContentHash;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+
+@Service
+public class ContentStore {
+
+    private final IBlobStore blobStore;
+    private final IStoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ContentStore(IBlobStore blobStore, IStoredBlobRepository storedBlobRepository, PlatformTransactionManager transactionManager) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Cada referencia suma uno; el archivo sólo se sube la primera vez que aparece ese contenido.
+    // La referencia se confirma acá mismo: si el llamador no llega a guardarla, tiene que liberarla
+    public StoredContent store(String folder, byte[] content, String extension, String contentType) throws IOException {
+        String hash = ContentHash.sha256Hex(content);
+        Optional<String> existing = acquire(hash);
+        if (existing.isPresent()) return new StoredContent(hash, existing.get());
+
+        String location = blobStore.put(folder + "/" + hash + "." + extension, content, contentType);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    storedBlobRepository.insert(hash, location, contentType, content.length, Instant.now()));
+            return new StoredContent(hash, location);
+        } catch (DataIntegrityViolationException e) {
+            // Otro pedido subió el mismo contenido al mismo tiempo: se suma a su registro
+            return acquire(hash)
+                    .map(stored -> new StoredContent(hash, stored))
+                    .orElseThrow(() -> new IOException("No se pudo registrar el archivo " + hash, e));
+        }
+    }
+
+    // Suma una referencia a un archivo ya guardado, dentro de la transacción del llamador
+    public void retain(String location) {
+        if (location == null || location.isEmpty()) return;
+        storedBlobRepository.retain(location);
+    }
+
+    public void release(String location) {
+        release(location, 1);
+    }
+
+    // Participa de la transacción del llamador: si ésta se revierte, la referencia sigue contando
+    public void release(String location, long count) {
+        if (location == null || location.isEmpty() || count <= 0) return;
+        storedBlobRepository.release(location, count);
+    }
+
+    private Optional<String> acquire(String hash) {
+        Optional<String> location = transactionTemplate.execute(status ->
+                storedBlobRepository.acquire(hash) > 0 ? storedBlobRepository.findLocationByHash(hash) : Optional.empty());
+        return location == null ? Optional.empty() : location;
+    }
+
+    public record StoredContent(String hash, String location) {}
+
+}
@@ -0,0 +1,213 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.EmailOutbox;
+import io.github.veron_santiago.backend.persistence.entity.EmailStatus;
+import io.github.veron_santiago.backend.persistence.repository.IEmailOutboxRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final IEmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender javaMailSender;
+    private final MailSpool mailSpool;
+    private final IBlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    public EmailOutboxDispatcher(IEmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender javaMailSender,
+                                 MailSpool mailSpool,
+                                 IBlobStore blobStore,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+                                 @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+                                 @Value("${app.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+                                 @Value("${app.mail.outbox.lease:5m}") Duration lease) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.javaMailSender = javaMailSender;
+        this.mailSpool = mailSpool;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.sentCounter = meterRegistry.counter("mail.outbox.sent");
+        this.retryCounter = meterRegistry.counter("mail.outbox.retried");
+        this.failedCounter = meterRegistry.counter("mail.outbox.failed");
+        this.batchTimer = meterRegistry.timer("mail.outbox.batch");
+        meterRegistry.gauge("mail.outbox.pending", emailOutboxRepository, r -> r.countByStatus(EmailStatus.PENDING));
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:2s}")
+    public void dispatch() {
+        int processed;
+        do {
+            Integer count = batchTimer.record(() -> dispatchBatch());
+            processed = count == null ? 0 : count;
+        } while (processed == batchSize);
+    }
+
+    // Las filas se bloquean sólo para reclamarlas: el envío SMTP y la descarga de adjuntos corren sin transacción
+    int dispatchBatch() {
+        Instant leaseUntil = Instant.now().plus(lease).truncatedTo(ChronoUnit.MILLIS);
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> claim(leaseUntil));
+        if (batch == null || batch.isEmpty()) return 0;
+
+        Map<Long, Exception> failures = send(batch);
+
+        List<String> finishedSpoolFiles = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> record(batch, leaseUntil, failures, finishedSpoolFiles));
+        // Los adjuntos se borran recién después del commit: si falla, el reintento todavía los encuentra
+        finishedSpoolFiles.forEach(mailSpool::delete);
+        return batch.size();
+    }
+
+    private List<EmailOutbox> claim(Instant leaseUntil) {
+        // SKIP LOCKED: otra instancia puede reclamar filas distintas al mismo tiempo sin enviar duplicados.
+        // Un lease vencido indica que la instancia que lo tomó se cayó a mitad del envío, así que la fila vuelve a reclamarse
+        List<EmailOutbox> batch = emailOutboxRepository.findClaimableForUpdate(EmailStatus.PENDING, EmailStatus.SENDING,
+                Instant.now(), PageRequest.of(0, batchSize));
+        for (EmailOutbox email : batch) {
+            if (email.getStatus() == EmailStatus.SENDING) {
+                log.warn("Se reclama el correo {} a {} con el lease vencido", email.getId(), email.getRecipient());
+            }
+            email.setStatus(EmailStatus.SENDING);
+            email.setLeaseUntil(leaseUntil);
+        }
+        return batch;
+    }
+
+    private Map<Long, Exception> send(List<EmailOutbox> batch) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(toMessage(email), email);
+            } catch (MessagingException | IOException | RuntimeException e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) return failures;
+
+        try {
+            // Un solo envío con varios mensajes reutiliza la misma conexión SMTP
+            javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(email -> failures.put(email.getId(), e));
+            } else {
+                e.getFailedMessages().forEach((message, failure) -> failures.put(messages.get(message).getId(), failure));
+            }
+        } catch (MailException e) {
+            messages.values().forEach(email -> failures.put(email.getId(), e));
+        }
+        return failures;
+    }
+
+    private void record(List<EmailOutbox> batch, Instant leaseUntil, Map<Long, Exception> failures, List<String> finishedSpoolFiles) {
+        Instant now = Instant.now();
+        List<Long> ids = batch.stream().map(EmailOutbox::getId).toList();
+        for (EmailOutbox email : emailOutboxRepository.findAllById(ids)) {
+            // Si el lease venció y otra instancia reclamó la fila, el resultado lo registra ella
+            if (email.getStatus() != EmailStatus.SENDING || !leaseUntil.equals(email.getLeaseUntil())) {
+                log.warn("El correo {} a {} cambió de lease durante el envío; no se registra el resultado", email.getId(), email.getRecipient());
+                continue;
+            }
+            email.setLeaseUntil(null);
+            Exception failure = failures.get(email.getId());
+            if (failure != null) {
+                markFailed(email, failure);
+            } else {
+                email.setStatus(EmailStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sentCounter.increment();
+            }
+            if (email.getStatus() != EmailStatus.PENDING) finishedSpoolFiles.add(email.getAttachmentSpoolPath());
+        }
+    }
+
+    private MimeMessage toMessage(EmailOutbox email) throws MessagingException, IOException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        boolean multipart = email.getAttachmentName() != null;
+        MimeMessageHelper helper = new MimeMessageHelper(message, multipart, "UTF-8");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody() == null ? "" : email.getBody());
+        if (multipart) {
+            // El PDF recién generado se adjunta desde el spool local; sólo se descarga si otra instancia lo generó
+            Path spooled = mailSpool.resolve(email.getAttachmentSpoolPath());
+            if (spooled != null) {
+                helper.addAttachment(email.getAttachmentName(), new FileSystemResource(spooled));
+            } else {
+                helper.addAttachment(email.getAttachmentName(), new ByteArrayResource(blobStore.read(email.getAttachmentUrl())));
+            }
+        }
+        return message;
+    }
+
+    private void markFailed(EmailOutbox email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String error = String.valueOf(e.getMessage());
+        email.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            failedCounter.increment();
+            log.error("Se descartó el correo {} a {} tras {} intentos", email.getId(), email.getRecipient(), attempts, e);
+            return;
+        }
+        email.setStatus(EmailStatus.PENDING);
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        email.setNextAttemptAt(Instant.now().plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+        retryCounter.increment();
+        log.warn("No se pudo enviar el correo {} a {} (intento {}): {}", email.getId(), email.getRecipient(), attempts, e.getMessage());
+    }
+
+}
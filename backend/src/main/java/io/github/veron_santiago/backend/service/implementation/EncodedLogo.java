@@ -0,0 +1,130 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+
+public record EncodedLogo(String filter, byte[] data, byte[] alpha, int width, int height) {
+
+    public static final String FLATE = COSName.FLATE_DECODE.getName();
+    public static final String DCT = COSName.DCT_DECODE.getName();
+
+    private static final float JPEG_QUALITY = 0.9f;
+
+    public static EncodedLogo prepare(BufferedImage image, int maxWidth, int maxHeight) throws IOException {
+        BufferedImage scaled = downscale(image, maxWidth, maxHeight);
+        EncodedLogo flate = encode(scaled);
+        if (flate.alpha() != null) return flate;
+
+        // Fotos y degradados comprimen mucho mejor en JPEG; los logos planos suelen quedar más chicos en Flate
+        byte[] jpeg = jpeg(scaled);
+        return jpeg.length * 2 < flate.data().length
+                ? new EncodedLogo(DCT, jpeg, null, scaled.getWidth(), scaled.getHeight())
+                : flate;
+    }
+
+    public static EncodedLogo encode(BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+
+        ByteArrayOutputStream rgbBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream alphaBytes = new ByteArrayOutputStream();
+        boolean translucent = false;
+        try (DeflaterOutputStream rgb = new DeflaterOutputStream(rgbBytes);
+             DeflaterOutputStream alpha = new DeflaterOutputStream(alphaBytes)) {
+            int[] row = new int[width];
+            byte[] rgbRow = new byte[width * 3];
+            byte[] alphaRow = new byte[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int argb = row[x];
+                    rgbRow[x * 3] = (byte) (argb >> 16);
+                    rgbRow[x * 3 + 1] = (byte) (argb >> 8);
+                    rgbRow[x * 3 + 2] = (byte) argb;
+                    alphaRow[x] = (byte) (argb >>> 24);
+                    if (hasAlpha && (argb >>> 24) != 0xFF) translucent = true;
+                }
+                rgb.write(rgbRow);
+                if (hasAlpha) alpha.write(alphaRow);
+            }
+        }
+        return new EncodedLogo(FLATE, rgbBytes.toByteArray(), translucent ? alphaBytes.toByteArray() : null, width, height);
+    }
+
+    public PDImageXObject toImage(PDDocument document) throws IOException {
+        PDImageXObject image = new PDImageXObject(document, new ByteArrayInputStream(data),
+                COSName.getPDFName(filter), width, height, 8, PDDeviceRGB.INSTANCE);
+        if (alpha != null) {
+            PDImageXObject mask = new PDImageXObject(document, new ByteArrayInputStream(alpha),
+                    COSName.FLATE_DECODE, width, height, 8, PDDeviceGray.INSTANCE);
+            image.getCOSObject().setItem(COSName.SMASK, mask);
+        }
+        return image;
+    }
+
+    public int size() {
+        return data.length + (alpha == null ? 0 : alpha.length);
+    }
+
+    // El logo se dibuja dentro del rectángulo del campo: manda el lado que quede más ajustado
+    private static BufferedImage downscale(BufferedImage image, int maxWidth, int maxHeight) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        double scale = Math.min(1d, Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        if (targetWidth == image.getWidth() && targetHeight == image.getHeight() && image.getType() == type) return image;
+
+        // Reducción por mitades para que el bicúbico no pierda detalle en imágenes muy grandes
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w > targetWidth || h > targetHeight);
+        return current;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+}
@@ -0,0 +1,109 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.github.veron_santiago.backend.util.ContentHash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalBlobStore implements IBlobStore {
+
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_-]+(/[A-Za-z0-9_-]+)*/[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private final Path root;
+    private final String publicBaseUrl;
+    private final RemoteFileClient remoteFileClient;
+
+    public LocalBlobStore(@Value("${app.storage.local.root:storage}") Path root,
+                          @Value("${app.storage.local.public-base-url:${app.api.uri}/files}") String publicBaseUrl,
+                          RemoteFileClient remoteFileClient) {
+        this.root = root.toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        this.remoteFileClient = remoteFileClient;
+    }
+
+    @Override
+    public String put(String key, byte[] content, String contentType) throws IOException {
+        Path target = resolve(key);
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+
+        // Se escribe en un temporal del mismo directorio y se renombra: un lector nunca ve un archivo a medias
+        Path temp = Files.createTempFile(directory, ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return publicBaseUrl + "/" + key;
+    }
+
+    @Override
+    public byte[] read(String location) throws IOException {
+        // Archivos subidos antes de pasar a disco local siguen en su URL original
+        if (!isLocal(location)) return remoteFileClient.download(location);
+        try (FileChannel channel = FileChannel.open(resolve(keyOf(location)), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Archivo demasiado grande: " + location);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("Lectura incompleta de " + location);
+            }
+            return buffer.array();
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String location) {
+        return isLocal(location) ? Optional.of(resolve(keyOf(location))) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        if (isLocal(location)) Files.deleteIfExists(resolve(keyOf(location)));
+    }
+
+    // bills/7/factura.pdf -> <root>/bills/7/ab/cd/factura.pdf: dos niveles de hash para no llenar un único directorio
+    public Path resolve(String key) {
+        if (key == null || !VALID_KEY.matcher(key).matches()) throw new IllegalArgumentException("Clave de archivo inválida: " + key);
+        int slash = key.lastIndexOf('/');
+        String name = key.substring(slash + 1);
+        String hash = ContentHash.sha256Hex(name.getBytes(StandardCharsets.UTF_8));
+        Path file = root.resolve(key.substring(0, slash))
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(name)
+                .normalize();
+        if (!file.startsWith(root)) throw new IllegalArgumentException("Clave de archivo inválida: " + key);
+        return file;
+    }
+
+    public String keyOf(String location) {
+        if (location == null) throw new IllegalArgumentException("Ubicación de archivo vacía");
+        return location.startsWith(publicBaseUrl + "/") ? location.substring(publicBaseUrl.length() + 1) : location;
+    }
+
+    private boolean isLocal(String location) {
+        return location != null && (location.startsWith(publicBaseUrl + "/") || !location.contains("://"));
+    }
+
+}
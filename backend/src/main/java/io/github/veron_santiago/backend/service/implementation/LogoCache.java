@@ -0,0 +1,99 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.CompanyLogo;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyLogoRepository;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+@Component
+public class LogoCache {
+
+    private final ICompanyLogoRepository companyLogoRepository;
+    private final ICompanyRepository companyRepository;
+    private final PdfTemplate pdfTemplate;
+    private final IBlobStore blobStore;
+    private final Cache<String, EncodedLogo> cache;
+
+    public LogoCache(ICompanyLogoRepository companyLogoRepository,
+                     ICompanyRepository companyRepository,
+                     PdfTemplate pdfTemplate,
+                     IBlobStore blobStore,
+                     @Value("${app.pdf.logo-cache.max-bytes:16777216}") long maxBytes) {
+        this.companyLogoRepository = companyLogoRepository;
+        this.companyRepository = companyRepository;
+        this.pdfTemplate = pdfTemplate;
+        this.blobStore = blobStore;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String path, EncodedLogo logo) -> logo.size())
+                .build();
+    }
+
+    public EncodedLogo get(Long companyId, String logoPath) throws IOException {
+        try {
+            return cache.get(logoPath, () -> load(companyId, logoPath));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("No se pudo cargar el logo " + logoPath, e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw new IOException("No se pudo cargar el logo " + logoPath, e.getCause());
+        }
+    }
+
+    public EncodedLogo prepare(BufferedImage image) throws IOException {
+        return EncodedLogo.prepare(image, pdfTemplate.getLogoPixelWidth(), pdfTemplate.getLogoPixelHeight());
+    }
+
+    public void store(Company company, String logoPath, EncodedLogo logo) {
+        persist(company, logoPath, logo);
+        cache.put(logoPath, logo);
+    }
+
+    public void invalidate(String logoPath) {
+        if (logoPath != null) cache.invalidate(logoPath);
+    }
+
+    private void persist(Company company, String logoPath, EncodedLogo logo) {
+        CompanyLogo entity = companyLogoRepository.findById(company.getId())
+                .orElseGet(() -> CompanyLogo.builder().company(company).build());
+        entity.setLogoPath(logoPath);
+        entity.setFilter(logo.filter());
+        entity.setData(logo.data());
+        entity.setAlpha(logo.alpha());
+        entity.setWidth(logo.width());
+        entity.setHeight(logo.height());
+        companyLogoRepository.save(entity);
+    }
+
+    EncodedLogo load(Long companyId, String logoPath) throws IOException {
+        CompanyLogo stored = companyLogoRepository.findByCompanyIdAndLogoPath(companyId, logoPath).orElse(null);
+        if (stored != null) {
+            return new EncodedLogo(stored.getFilter(), stored.getData(), stored.getAlpha(), stored.getWidth(), stored.getHeight());
+        }
+
+        // Logos subidos antes de guardarse la versión preparada: se procesan una vez y se persisten
+        BufferedImage buffered = ImageIO.read(new ByteArrayInputStream(blobStore.read(logoPath)));
+        if (buffered == null) throw new IOException("Formato de logo no soportado: " + logoPath);
+        EncodedLogo logo = prepare(buffered);
+        // Una factura diferida puede traer un logo anterior: ése queda sólo en memoria para no pisar la fila del logo actual
+        String currentLogoPath = companyRepository.findLogoPathById(companyId).orElse(null);
+        if (Objects.equals(currentLogoPath, logoPath)) {
+            persist(companyRepository.getReferenceById(companyId), logoPath, logo);
+        }
+        return logo;
+    }
+
+}
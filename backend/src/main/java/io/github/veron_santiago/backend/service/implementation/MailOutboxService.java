@@ -0,0 +1,38 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.EmailOutbox;
+import io.github.veron_santiago.backend.persistence.repository.IEmailOutboxRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+@Service
+public class MailOutboxService {
+
+    private final IEmailOutboxRepository emailOutboxRepository;
+
+    public MailOutboxService(IEmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
+    }
+
+    public void enqueue(String recipient, String subject, String body) {
+        enqueue(recipient, subject, body, null, null, null);
+    }
+
+    public void enqueue(String recipient, String subject, String body, String attachmentName, String attachmentUrl, String attachmentSpoolPath) {
+        Instant now = Instant.now();
+        emailOutboxRepository.save(
+                EmailOutbox.builder()
+                        .recipient(recipient)
+                        .subject(subject)
+                        .body(body)
+                        .attachmentName(attachmentName)
+                        .attachmentUrl(attachmentUrl)
+                        .attachmentSpoolPath(attachmentSpoolPath)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build()
+        );
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+@Component
+public class MailSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(MailSpool.class);
+
+    private final Path directory;
+
+    public MailSpool(@Value("${app.mail.spool-dir:${java.io.tmpdir}/invoice-mail-spool}") Path directory) {
+        this.directory = directory;
+    }
+
+    public String write(byte[] content) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(UUID.randomUUID() + ".bin");
+        Files.write(file, content);
+        return file.toString();
+    }
+
+    public Path resolve(String spoolPath) {
+        if (spoolPath == null) return null;
+        Path file = Path.of(spoolPath);
+        return file.startsWith(directory) && Files.isReadable(file) ? file : null;
+    }
+
+    public void delete(String spoolPath) {
+        if (spoolPath == null) return;
+        Path file = Path.of(spoolPath);
+        if (!file.startsWith(directory)) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el archivo de spool {}", spoolPath, e);
+        }
+    }
+
+}
@@ -2,57 +2,81 @@ package io.github.veron_santiago.backend.service.implementation;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.projection.MpCredentials;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.service.exception.BadGatewayException;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
 import io.github.veron_santiago.backend.service.exception.InvalidFieldException;
+import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
 import io.github.veron_santiago.backend.service.exception.UnprocessableEntity;
 import io.github.veron_santiago.backend.service.interfaces.IMercadoPagoService;
 import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.CompanySnapshotCache;
 import io.github.veron_santiago.backend.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Service
 public class MercadoPagoServiceImpl implements IMercadoPagoService {
 
+    private static final Logger log = LoggerFactory.getLogger(MercadoPagoServiceImpl.class);
+    private static final long REFRESH_MARGIN_SECONDS = 60;
+
     @Value("${mp_client_id}") private String clientId;
     @Value("${mp_client_secret}") private String clientSecret;
     @Value("${app.mp.redirect-uri}") private String redirectUri;
-    @Value("${security.jwt.private-key}") private String privateKey;
+    @Value("${app.mp.api-uri:https://api.mercadopago.com}") private String apiUri;
 
     private final ICompanyRepository companyRepository;
     private final RestTemplate restTemplate;
     private final AuthUtil authUtil;
     private final JwtUtil jwtUtil;
+    private final CompanySnapshotCache snapshotCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Long, CompletableFuture<MpCredentials>> refreshes = new ConcurrentHashMap<>();
 
-    public MercadoPagoServiceImpl(ICompanyRepository companyRepository, RestTemplate restTemplate, AuthUtil authUtil, JwtUtil jwtUtil) {
+    public MercadoPagoServiceImpl(ICompanyRepository companyRepository, RestTemplate restTemplate, AuthUtil authUtil, JwtUtil jwtUtil, CompanySnapshotCache snapshotCache, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.companyRepository = companyRepository;
         this.restTemplate = restTemplate;
         this.authUtil = authUtil;
         this.jwtUtil = jwtUtil;
+        this.snapshotCache = snapshotCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public String buildAuthUrl(HttpServletRequest request) {
         Long companyId = authUtil.getAuthenticatedCompanyId(request);
-        String state = jwtUtil.generateState(companyId, privateKey);
+        String state = jwtUtil.generateState(companyId);
         return UriComponentsBuilder.fromUriString("https://auth.mercadopago.com.ar/authorization")
                 .queryParam("client_id", clientId)
                 .queryParam("response_type", "code")
@@ -73,7 +97,7 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
     @Override
     public void exchangeCodeForTokens(String code, String state, HttpServletRequest request) {
 
-        Long companyId = jwtUtil.validateState(state, privateKey);
+        Long companyId = jwtUtil.validateState(state);
         if (companyId == null) throw new InvalidFieldException("Parámetro state inválido");
 
         Company company = authUtil.getCompanyById(companyId);
@@ -91,7 +115,7 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
         HttpEntity<MultiValueMap<String,String>> httpEntity = new HttpEntity<>(form, headers);
 
         ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                "https://api.mercadopago.com/oauth/token",
+                apiUri + "/oauth/token",
                 httpEntity,
                 JsonNode.class
         );
@@ -113,16 +137,23 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
         company.setMpRefreshToken(refreshToken);
         company.setMpTokenExpiration(Instant.now().plusSeconds(expiresIn).getEpochSecond());
         companyRepository.save(company);
+        snapshotCache.invalidate(companyId);
     }
 
+    // Recibe sólo el id: corre en otro hilo y no debe tocar la entidad de la sesión del pedido
     @Override
-    public String createPaymentLink(Company company, BigDecimal amount) {
-        String accessToken = company.getMpAccessToken();
-        if (accessToken == null || accessToken.isEmpty()) throw new UnprocessableEntity("La compañía no está vinculada a Mercado Pago");
-        if (company.getMpTokenExpiration() < Instant.now().getEpochSecond() + 60) accessToken = refreshAccessToken(company);
+    public String createPaymentLink(Long companyId, String companyName, BigDecimal amount) {
+        MpCredentials credentials = companyRepository.findMpCredentialsById(companyId)
+                .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
+        if (credentials.accessToken() == null || credentials.accessToken().isEmpty()) throw new UnprocessableEntity("La compañía no está vinculada a Mercado Pago");
+        if (isExpiring(credentials.expiresAt(), REFRESH_MARGIN_SECONDS)) {
+            // El refresh guarda los tokens nuevos en su propia transacción
+            credentials = refreshAccessToken(companyId, REFRESH_MARGIN_SECONDS, "inline");
+        }
+        String accessToken = credentials.accessToken();
 
         Map<String, Object> item = Map.of(
-                "title", "Factuara de " + company.getCompanyName(),
+                "title", "Factuara de " + companyName,
                 "quantity", 1,
                 "unit_price", amount
         );
@@ -138,7 +169,7 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(preference, headers);
 
         ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                "https://api.mercadopago.com/checkout/preferences",
+                apiUri + "/checkout/preferences",
                 entity,
                 JsonNode.class
         );
@@ -149,23 +180,56 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
         return body.get("init_point").asText();
     }
 
-    private String refreshAccessToken(Company company){
+    @Override
+    public void refreshAccessTokenIfExpiring(Long companyId, Duration margin) {
+        refreshAccessToken(companyId, margin.toSeconds(), "scheduled");
+    }
+
+    // Un refresh invalida el refresh token anterior: los pedidos concurrentes de una compañía comparten una sola llamada
+    private MpCredentials refreshAccessToken(Long companyId, long marginSeconds, String trigger) {
+        CompletableFuture<MpCredentials> flight = new CompletableFuture<>();
+        CompletableFuture<MpCredentials> inFlight = refreshes.putIfAbsent(companyId, flight);
+        if (inFlight != null) return await(inFlight);
+        try {
+            flight.complete(doRefresh(companyId, marginSeconds, trigger));
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+        } finally {
+            refreshes.remove(companyId, flight);
+        }
+        return await(flight);
+    }
+
+    private MpCredentials doRefresh(Long companyId, long marginSeconds, String trigger) {
+        MpCredentials current = companyRepository.findMpCredentialsById(companyId)
+                .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
+        // Quien llega tarde con la entidad vieja encuentra el token ya renovado en la base
+        if (!isExpiring(current.expiresAt(), marginSeconds)) return current;
+
         MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
         form.add("grant_type", "refresh_token");
         form.add("client_id", clientId);
         form.add("client_secret", clientSecret);
-        form.add("refresh_token", company.getMpRefreshToken());
+        form.add("refresh_token", current.refreshToken());
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(form, headers);
 
-        ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                "https://api.mercadopago.com/oauth/token",
-                request,
-                JsonNode.class
-        );
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        ResponseEntity<JsonNode> response;
+        try {
+            response = restTemplate.postForEntity(
+                    apiUri + "/oauth/token",
+                    request,
+                    JsonNode.class
+            );
+            if (response.getStatusCode().is2xxSuccessful()) outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("mp.token.refresh", "trigger", trigger, "outcome", outcome));
+        }
 
         if (!response.getStatusCode().is2xxSuccessful()) throw new BadGatewayException(ErrorMessages.QR.getMessage());
         JsonNode json = response.getBody();
@@ -175,18 +239,34 @@ public class MercadoPagoServiceImpl implements IMercadoPagoService {
                 !json.has("refresh_token") ||
                 !json.has("expires_in")) throw new BadGatewayException(ErrorMessages.QR.getMessage());
 
+        MpCredentials renewed = new MpCredentials(
+                json.get("access_token").asText(),
+                json.get("refresh_token").asText(),
+                Instant.now().plusSeconds(json.get("expires_in").asLong()).getEpochSecond()
+        );
 
-        String newAccessToken = json.get("access_token").asText();
-        String newRefreshToken = json.get("refresh_token").asText();
-        long expiresIn = json.get("expires_in").asLong();
-
-        company.setMpAccessToken(newAccessToken);
-        company.setMpRefreshToken(newRefreshToken);
-        company.setMpTokenExpiration(Instant.now().plusSeconds(expiresIn).getEpochSecond());
+        // Transacción propia: el token nuevo tiene que estar confirmado antes de liberar a los que esperan
+        Integer updated = transactionTemplate.execute(status -> companyRepository.updateMpCredentials(
+                companyId, renewed.accessToken(), renewed.refreshToken(), renewed.expiresAt(), current.refreshToken()));
+        snapshotCache.invalidate(companyId);
+        if (updated == null || updated == 0) {
+            log.warn("Tokens de Mercado Pago de la compañía {} renovados por otro proceso", companyId);
+            return companyRepository.findMpCredentialsById(companyId).orElse(renewed);
+        }
+        return renewed;
+    }
 
-        Company saved = companyRepository.save(company);
-        return saved.getMpAccessToken();
+    private MpCredentials await(CompletableFuture<MpCredentials> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new BadGatewayException(ErrorMessages.QR.getMessage());
+        }
     }
 
+    private boolean isExpiring(Long expiresAt, long marginSeconds) {
+        return expiresAt == null || expiresAt < Instant.now().getEpochSecond() + marginSeconds;
+    }
 
 }
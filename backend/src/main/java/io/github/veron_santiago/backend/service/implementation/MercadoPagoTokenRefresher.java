@@ -0,0 +1,92 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.interfaces.IMercadoPagoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class MercadoPagoTokenRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(MercadoPagoTokenRefresher.class);
+
+    private final ICompanyRepository companyRepository;
+    private final IMercadoPagoService mercadoPagoService;
+    private final Duration lookahead;
+    private final int batchSize;
+    private final Duration maxJitter;
+    private final Duration retryAfter;
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final Map<Long, Instant> cooldowns = new ConcurrentHashMap<>();
+
+    public MercadoPagoTokenRefresher(ICompanyRepository companyRepository,
+                                     IMercadoPagoService mercadoPagoService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.mp.refresh.lookahead:30m}") Duration lookahead,
+                                     @Value("${app.mp.refresh.batch-size:10}") int batchSize,
+                                     @Value("${app.mp.refresh.max-jitter:500ms}") Duration maxJitter,
+                                     @Value("${app.mp.refresh.retry-after:15m}") Duration retryAfter) {
+        this.companyRepository = companyRepository;
+        this.mercadoPagoService = mercadoPagoService;
+        this.lookahead = lookahead;
+        this.batchSize = batchSize;
+        this.maxJitter = maxJitter;
+        this.retryAfter = retryAfter;
+        this.processedCounter = meterRegistry.counter("mp.token.scheduled.processed");
+        this.failedCounter = meterRegistry.counter("mp.token.scheduled.failed");
+    }
+
+    @Scheduled(fixedDelayString = "${app.mp.refresh.poll-interval:1m}", initialDelayString = "${app.mp.refresh.initial-delay:30s}")
+    public void refreshExpiring() {
+        Instant now = Instant.now();
+        cooldowns.values().removeIf(until -> until.isBefore(now));
+
+        // Un lote chico por ciclo: las compañías que fallaron quedan afuera hasta que venza su espera
+        List<Long> excluded = new ArrayList<>(cooldowns.keySet());
+        excluded.add(-1L);
+        List<Long> ids = companyRepository.findIdsWithMpTokenExpiringBefore(
+                now.plus(lookahead).getEpochSecond(), excluded, PageRequest.of(0, batchSize));
+
+        for (Long companyId : ids) {
+            if (!pause()) return;
+            try {
+                mercadoPagoService.refreshAccessTokenIfExpiring(companyId, lookahead);
+                processedCounter.increment();
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                cooldowns.put(companyId, Instant.now().plus(retryAfter));
+                log.warn("No se pudo renovar el token de Mercado Pago de la compañía {}: {}", companyId, e.getMessage());
+            }
+        }
+        if (!ids.isEmpty()) log.info("Tokens de Mercado Pago revisados: {}", ids.size());
+    }
+
+    // Espera aleatoria entre renovaciones para no mandar ráfagas al endpoint de OAuth
+    private boolean pause() {
+        long bound = maxJitter.toMillis();
+        if (bound <= 0) return true;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
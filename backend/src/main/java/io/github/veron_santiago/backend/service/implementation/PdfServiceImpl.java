@@ -2,117 +2,80 @@ package io.github.veron_santiago.backend.service.implementation;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPdfDTO;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
 import io.github.veron_santiago.backend.service.exception.InternalServerException;
 import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
-import io.github.veron_santiago.backend.service.interfaces.ICompanyService;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
 import io.github.veron_santiago.backend.service.interfaces.IPdfService;
 import io.github.veron_santiago.backend.util.AuthUtil;
-import io.github.veron_santiago.backend.util.ByteArrayMultipartFile;
+import io.github.veron_santiago.backend.util.ContentHash;
 import jakarta.servlet.http.HttpServletRequest;
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSName;
-import org.apache.pdfbox.io.RandomAccessRead;
-import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
-import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceDictionary;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
-import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDPushButton;
-import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.math.BigDecimal;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 public class PdfServiceImpl implements IPdfService {
 
+    private static final Logger log = LoggerFactory.getLogger(PdfServiceImpl.class);
+
     private final IBillRepository billRepository;
-    private final ICompanyService companyService;
-    private final CloudinaryService cloudinaryService;
+    private final IBlobStore blobStore;
+    private final ContentStore contentStore;
     private final AuthUtil authUtil;
+    private final PdfTemplate pdfTemplate;
+    private final BillPdfLayout billPdfLayout;
+    private final LogoCache logoCache;
+    private final QrCodeService qrCodeService;
 
-    public PdfServiceImpl(IBillRepository billRepository, ICompanyService companyService, CloudinaryService cloudinaryService, AuthUtil authUtil) {
+    public PdfServiceImpl(IBillRepository billRepository, IBlobStore blobStore, ContentStore contentStore, AuthUtil authUtil, PdfTemplate pdfTemplate, BillPdfLayout billPdfLayout, LogoCache logoCache, QrCodeService qrCodeService) {
         this.billRepository = billRepository;
-        this.companyService = companyService;
-        this.cloudinaryService = cloudinaryService;
+        this.blobStore = blobStore;
+        this.contentStore = contentStore;
         this.authUtil = authUtil;
+        this.pdfTemplate = pdfTemplate;
+        this.billPdfLayout = billPdfLayout;
+        this.logoCache = logoCache;
+        this.qrCodeService = qrCodeService;
     }
 
     @Override
-    public String generateBillPdf(Bill bill, HttpServletRequest request, boolean includeQr, byte[] qrBytes) throws IOException {
-        try (PDDocument template = getTemplate()) {
-            PDDocumentCatalog catalog = template.getDocumentCatalog();
-            PDAcroForm form = catalog.getAcroForm();
-            if (form == null) throw new IllegalStateException(ErrorMessages.PDF_GENERATE_ERROR.getMessage());
-            form.setNeedAppearances(false);
-
+    public RenderedPdf generateBillPdf(Bill bill, boolean includeQr, byte[] qrBytes) throws IOException {
+        boolean singlePage = billPdfLayout.fitsFirstPage(bill.getBillLines().size());
+        try (PDDocument template = singlePage ? pdfTemplate.open() : pdfTemplate.openWithScratchFile()) {
+            PDAcroForm form = template.getDocumentCatalog().getAcroForm();
             String billNumber = getBillNumber(bill.getBillNumber());
             Long companyId = bill.getCompany().getId();
-            PDResources resources = form.getDefaultResources();
-            if (resources == null) {
-                resources = new PDResources();
-                form.setDefaultResources(resources);
-            }
-            PDType1Font helvetica = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-            PDType1Font helveticaBold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-            COSName helv = resources.add(helvetica);
-            COSName helvBold = resources.add(helveticaBold);
-            Set<String> boldFields = Set.of(
-                    "companyNameTittle",
-                    "companyName",
-                    "customerName",
-                    "totalAmount"
-            );
-            for (PDField fld : form.getFields()) {
-                if (!(fld instanceof PDTextField textField)) continue;
-                String name = textField.getPartialName();
-                String originalDA = textField.getDefaultAppearance();
-                Matcher m = Pattern.compile(".*\\s(\\d+(?:\\.\\d+)?)\\sTf.*").matcher(originalDA);
-                String size = m.matches() ? m.group(1) : "12";
-                if (boldFields.contains(name)) {
-                    textField.setDefaultAppearance("/" + helvBold.getName() + " " + size + " Tf 0 g");
-                } else {
-                    textField.setDefaultAppearance("/" + helv.getName() + " " + size + " Tf 0 g");
-                }
-            }
 
-            String logo = companyService.getLogo(request);
+            // Una factura diferida usa el logo que tenía la compañía al crearla
+            String logo = bill.getPdfStatus() == PdfStatus.DEFERRED ? bill.getLogoPath() : bill.getCompany().getLogoPath();
             if (logo != null && !logo.isBlank()){
-                URI uri = new URI(logo);
-                URL url = uri.toURL();
-                try (InputStream in = url.openStream()) {
-                    BufferedImage buffered = ImageIO.read(in);
-                    PDImageXObject pdImage = LosslessFactory.createFromImage(template, buffered);
-                    setImageInAcroButton(template, pdImage, form, "logo_af_image", true);
-                }
+                PDImageXObject pdImage = logoCache.get(companyId, logo).toImage(template);
+                setImageInAcroButton(template, pdImage, form, PdfTemplate.LOGO_FIELD, true);
             }
 
             if (includeQr && qrBytes != null) {
@@ -131,36 +94,92 @@ public class PdfServiceImpl implements IPdfService {
             }
             form.getField("companyName").setValue(bill.getCompanyName());
             form.getField("customerName").setValue(bill.getCustomerName());
-            form.getField("totalAmount").setValue("$ " + formatAmount(bill.getTotalAmount()));
-            saveBillLines(bill.getBillLines(), form);
+            form.getField("totalAmount").setValue("$ " + BillPdfLayout.formatAmount(bill.getTotalAmount()));
             form.flatten();
+            billPdfLayout.drawLines(template, bill, billNumber);
 
             return savePdf(template, companyId, billNumber);
-        } catch (URISyntaxException e) {
-            throw new InternalServerException("Error al generar el PDF");
         }
     }
 
     @Override
-    public String getPdfByBillId(Long billId, HttpServletRequest request) throws AccessDeniedException {
+    public BillPdfDTO getPdfByBillId(Long billId, HttpServletRequest request) throws AccessDeniedException {
+        Bill bill = findOwnedBill(billId, request);
+        if (bill.getPdfStatus() == PdfStatus.DEFERRED) {
+            try {
+                renderDeferred(bill);
+            } catch (IOException e) {
+                log.error("No se pudo generar el PDF de la factura {}", billId, e);
+                throw new InternalServerException(ErrorMessages.PDF_GENERATE_ERROR.getMessage());
+            }
+        }
+        String pdfPath = bill.getPdfPath();
+        if (pdfPath != null && !pdfPath.isEmpty()) return new BillPdfDTO(billId, PdfStatus.READY, pdfPath);
+        checkPending(bill);
+        return new BillPdfDTO(billId, PdfStatus.PENDING, null);
+    }
+
+    @Override
+    public Optional<PdfFile> getPdfFile(Long billId, HttpServletRequest request) throws IOException {
+        Bill bill = findOwnedBill(billId, request);
+        if (bill.getPdfStatus() == PdfStatus.DEFERRED) renderDeferred(bill);
+        String pdfPath = bill.getPdfPath();
+        if (pdfPath == null || pdfPath.isEmpty()) {
+            checkPending(bill);
+            return Optional.empty();
+        }
+
+        // Facturas anteriores al hash: se calcula una vez y se guarda para las descargas siguientes
+        String hash = bill.getPdfHash();
+        if (hash == null) {
+            hash = ContentHash.sha256Hex(blobStore.read(pdfPath));
+            billRepository.updatePdfHash(billId, hash);
+        }
+        return Optional.of(new PdfFile(pdfPath, getBillNumber(bill.getBillNumber()) + ".pdf", hash));
+    }
 
+    private Bill findOwnedBill(Long billId, HttpServletRequest request) throws AccessDeniedException {
         Bill bill = billRepository.findById(billId)
                 .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.BILL_NOT_FOUND.getMessage()));
         Long companyId = bill.getCompany().getId();
         if (!Objects.equals(companyId, authUtil.getAuthenticatedCompanyId(request))) {
             throw new AccessDeniedException(ErrorMessages.ACCESS_DENIED_READ.getMessage());
         }
+        return bill;
+    }
 
-        String pdfPath = bill.getPdfPath();
-        if (pdfPath != null && !pdfPath.isEmpty()) return pdfPath;
-        else throw new ObjectNotFoundException("PDF no encontrado");
+    // Se genera desde los datos guardados en la factura, así que el resultado es el mismo que al crearla
+    private void renderDeferred(Bill bill) throws IOException {
+        Bill snapshot = billRepository.findWithLinesById(bill.getId())
+                .orElseThrow(() -> new ObjectNotFoundException(ErrorMessages.BILL_NOT_FOUND.getMessage()));
+        String paymentLink = snapshot.getPaymentLink();
+        byte[] qrBytes = paymentLink == null ? null : qrCodeService.generateQrCode(paymentLink, 200, 200);
+        RenderedPdf rendered = generateBillPdf(snapshot, paymentLink != null, qrBytes);
+
+        int updated;
+        try {
+            updated = billRepository.updatePdfIfStatus(bill.getId(), rendered.path(), rendered.hash(), PdfStatus.READY, PdfStatus.DEFERRED);
+        } catch (RuntimeException e) {
+            contentStore.release(rendered.path());
+            throw e;
+        }
+        if (updated > 0) {
+            contentStore.release(snapshot.getLogoPath());
+        } else {
+            // Otro pedido la generó primero; el contenido es el mismo y sólo sobra esta referencia
+            contentStore.release(rendered.path());
+        }
+        bill.setPdfPath(rendered.path());
+        bill.setPdfHash(rendered.hash());
+        bill.setPdfStatus(PdfStatus.READY);
     }
 
-    private PDDocument getTemplate() throws IOException {
-        InputStream templateStream = getClass().getResourceAsStream("/templates/template.pdf");
-        RandomAccessRead rar = new RandomAccessReadBuffer(templateStream);
-        return Loader.loadPDF(rar);
+    private void checkPending(Bill bill) {
+        if (bill.getPdfStatus() == PdfStatus.PENDING) return;
+        if (bill.getPdfStatus() == PdfStatus.FAILED) throw new InternalServerException(ErrorMessages.PDF_GENERATE_ERROR.getMessage());
+        throw new ObjectNotFoundException("PDF no encontrado");
     }
+
     private String getBillNumber(Long billNumber){
         int times = 8 - String.valueOf(billNumber).length();
         return "0".repeat(times) + billNumber;
@@ -185,42 +204,23 @@ public class PdfServiceImpl implements IPdfService {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         return date.format(formatter);
     }
-    private void saveBillLines(List<BillLine> billLines, PDAcroForm acroForm) throws IOException {
-        for (int i = 0, x = 1; i < billLines.size(); i++, x++){
-            BillLine line = billLines.get(i);
-            if (line.getCode() != null) acroForm.getField("code" + x).setValue(line.getCode());
-            acroForm.getField("productName" + x).setValue(line.getName());
-            acroForm.getField("unitPrice" + x).setValue(formatAmount(line.getPrice()));
-            acroForm.getField("quantity" + x).setValue(String.valueOf(line.getQuantity()));
-            acroForm.getField("total" + x).setValue(formatAmount(line.getTotal()));
-        }
-    }
-    private String savePdf(PDDocument template, Long companyId, String billNumber) throws IOException {
+    private RenderedPdf savePdf(PDDocument template, Long companyId, String billNumber) throws IOException {
+        setDocumentId(template, "factura:" + companyId + ":" + billNumber);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         template.save(baos);
         byte[] pdfBytes = baos.toByteArray();
 
-        String path = "bills/" + companyId + "/";
-
-        LocalDate date = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        String dateSt = date.format(formatter);
-        UUID uuid = UUID.randomUUID();
-        String uuidSt = uuid.toString();
-        String node = uuidSt.substring(uuidSt.lastIndexOf("-") + 1);
-        String name = billNumber + "_" + dateSt + "_" + node.toUpperCase();
-
-        MultipartFile multipartFile = new ByteArrayMultipartFile(
-                pdfBytes,
-                name + ".pdf",
-                name + ".pdf",
-                "application/pdf"
-        );
-
-        return cloudinaryService.uploadField(multipartFile, path, name + ".pdf", true);
+        // Clave por contenido: volver a generar la misma factura reutiliza el archivo ya guardado
+        ContentStore.StoredContent stored = contentStore.store("bills", pdfBytes, "pdf", "application/pdf");
+        return new RenderedPdf(stored.location(), billNumber + ".pdf", pdfBytes, stored.hash());
     }
-    private String formatAmount(BigDecimal amount) {
-        return String.format(Locale.US, "%.2f", amount);
+    // Sin /ID propio PDFBox genera uno a partir de la hora y dos renders iguales darían bytes distintos
+    private void setDocumentId(PDDocument document, String seed) {
+        byte[] id = Arrays.copyOf(HexFormat.of().parseHex(ContentHash.sha256Hex(seed.getBytes(StandardCharsets.UTF_8))), 16);
+        COSArray ids = new COSArray();
+        ids.add(new COSString(id, true));
+        ids.add(new COSString(id, true));
+        document.getDocument().getTrailer().setItem(COSName.ID, ids);
     }
     private void setImageInAcroButton(PDDocument template, PDImageXObject image, PDAcroForm form, String field, boolean isPdf){
         PDPushButton button = (PDPushButton) form.getField(field);
@@ -0,0 +1,148 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.service.exception.ErrorMessages;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class PdfTemplate {
+
+    static final String TEMPLATE_PATH = "/templates/template.pdf";
+    static final String LOGO_FIELD = "logo_af_image";
+    // Columnas de la tabla de líneas en la plantilla; cada una tiene los campos <prefijo>1..<prefijo>N
+    static final List<String> LINE_COLUMNS = List.of("code", "productName", "unitPrice", "quantity", "total");
+
+    private static final Pattern FONT_SIZE = Pattern.compile(".*\\s(\\d+(?:\\.\\d+)?)\\sTf.*");
+    private static final Set<String> BOLD_FIELDS = Set.of(
+            "companyNameTittle",
+            "companyName",
+            "customerName",
+            "totalAmount"
+    );
+
+    private static final float LOGO_DPI = 300f;
+
+    private final byte[] prepared;
+    private final int logoPixelWidth;
+    private final int logoPixelHeight;
+    private final LineTable lineTable;
+
+    public PdfTemplate() {
+        try (InputStream in = PdfTemplate.class.getResourceAsStream(TEMPLATE_PATH)) {
+            if (in == null) throw new IllegalStateException("No se encontró la plantilla " + TEMPLATE_PATH);
+            this.prepared = prepare(in.readAllBytes());
+            try (PDDocument document = open()) {
+                PDField logo = document.getDocumentCatalog().getAcroForm().getField(LOGO_FIELD);
+                PDRectangle rectangle = logo.getWidgets().getFirst().getRectangle();
+                this.logoPixelWidth = Math.round(rectangle.getWidth() / 72f * LOGO_DPI);
+                this.logoPixelHeight = Math.round(rectangle.getHeight() / 72f * LOGO_DPI);
+                this.lineTable = lineTable(document);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la plantilla " + TEMPLATE_PATH, e);
+        }
+    }
+
+    public PDDocument open() throws IOException {
+        return Loader.loadPDF(prepared);
+    }
+
+    public int getLogoPixelWidth() {
+        return logoPixelWidth;
+    }
+
+    public int getLogoPixelHeight() {
+        return logoPixelHeight;
+    }
+
+    // Para facturas largas: los streams van a un archivo temporal en vez de quedar en el heap
+    public PDDocument openWithScratchFile() throws IOException {
+        return Loader.loadPDF(prepared, "", null, null, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    public LineTable getLineTable() {
+        return lineTable;
+    }
+
+    static byte[] prepare(byte[] raw) throws IOException {
+        try (PDDocument document = Loader.loadPDF(raw)) {
+            normalize(document);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(raw.length);
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    static void normalize(PDDocument document) {
+        PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+        if (form == null) throw new IllegalStateException(ErrorMessages.PDF_GENERATE_ERROR.getMessage());
+        form.setNeedAppearances(false);
+
+        PDResources resources = form.getDefaultResources();
+        if (resources == null) {
+            resources = new PDResources();
+            form.setDefaultResources(resources);
+        }
+        COSName helv = resources.add(new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+        COSName helvBold = resources.add(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD));
+
+        for (PDField fld : form.getFields()) {
+            if (!(fld instanceof PDTextField textField)) continue;
+            Matcher m = FONT_SIZE.matcher(textField.getDefaultAppearance());
+            String size = m.matches() ? m.group(1) : "12";
+            COSName font = BOLD_FIELDS.contains(textField.getPartialName()) ? helvBold : helv;
+            textField.setDefaultAppearance("/" + font.getName() + " " + size + " Tf 0 g");
+        }
+    }
+
+    // La geometría de las filas se toma de los campos de la plantilla para dibujar las líneas a mano
+    static LineTable lineTable(PDDocument document) {
+        PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+        List<LineColumn> columns = new ArrayList<>();
+        for (String name : LINE_COLUMNS) {
+            PDTextField field = (PDTextField) form.getField(name + "1");
+            PDRectangle rect = field.getWidgets().getFirst().getRectangle();
+            Matcher m = FONT_SIZE.matcher(field.getDefaultAppearance());
+            float fontSize = m.matches() ? Float.parseFloat(m.group(1)) : 12f;
+            columns.add(new LineColumn(name, rect.getLowerLeftX(), rect.getWidth(), fontSize, field.getQ()));
+        }
+        columns.sort(Comparator.comparingDouble(LineColumn::x));
+
+        String first = LINE_COLUMNS.getFirst();
+        float firstRowTop = rowRect(form, first, 1).getUpperRightY();
+        float rowHeight = firstRowTop - rowRect(form, first, 2).getUpperRightY();
+        int rows = 0;
+        while (form.getField(first + (rows + 1)) != null) rows++;
+        PDRectangle page = document.getPage(0).getMediaBox();
+        return new LineTable(List.copyOf(columns), firstRowTop, rowHeight, rows, page.getWidth(), page.getHeight());
+    }
+
+    private static PDRectangle rowRect(PDAcroForm form, String column, int row) {
+        return form.getField(column + row).getWidgets().getFirst().getRectangle();
+    }
+
+    public record LineColumn(String name, float x, float width, float fontSize, int alignment) {}
+
+    public record LineTable(List<LineColumn> columns, float firstRowTop, float rowHeight, int rows, float pageWidth, float pageHeight) {}
+
+}
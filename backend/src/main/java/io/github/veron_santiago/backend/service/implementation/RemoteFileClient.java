@@ -0,0 +1,36 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+
+@Component
+public class RemoteFileClient {
+
+    private final RestTemplate restTemplate;
+
+    public RemoteFileClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    // Descargas por el cliente HTTP compartido: pool, timeouts y reintentos en lugar de URL.openStream
+    public byte[] download(String url) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("URL inválida: " + url, e);
+        }
+        try {
+            byte[] bytes = restTemplate.getForObject(uri, byte[].class);
+            if (bytes == null) throw new IOException("Respuesta vacía de " + url);
+            return bytes;
+        } catch (RestClientException e) {
+            throw new IOException("No se pudo descargar " + url, e);
+        }
+    }
+
+}
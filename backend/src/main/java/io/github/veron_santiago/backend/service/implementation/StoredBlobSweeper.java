@@ -0,0 +1,60 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.StoredBlob;
+import io.github.veron_santiago.backend.persistence.repository.IStoredBlobRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+@Component
+public class StoredBlobSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(StoredBlobSweeper.class);
+
+    private final IStoredBlobRepository storedBlobRepository;
+    private final IBlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public StoredBlobSweeper(IStoredBlobRepository storedBlobRepository,
+                             IBlobStore blobStore,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.storage.sweep.batch-size:20}") int batchSize) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.sweep.interval:10m}", initialDelayString = "${app.storage.sweep.initial-delay:1m}")
+    public void sweep() {
+        Integer deleted = transactionTemplate.execute(status -> deleteUnreferenced());
+        if (deleted != null && deleted > 0) log.info("Archivos sin referencias eliminados: {}", deleted);
+    }
+
+    // Las filas quedan bloqueadas hasta el commit: un store() concurrente espera y, si la fila ya no está, vuelve a subir
+    int deleteUnreferenced() {
+        List<StoredBlob> unreferenced = storedBlobRepository.findUnreferencedForUpdate(PageRequest.of(0, batchSize));
+        int deleted = 0;
+        for (StoredBlob blob : unreferenced) {
+            try {
+                blobStore.delete(blob.getLocation());
+                storedBlobRepository.delete(blob);
+                deleted++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("No se pudo eliminar el archivo {}: {}", blob.getLocation(), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+}
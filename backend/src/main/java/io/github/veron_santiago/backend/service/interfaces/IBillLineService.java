@@ -2,15 +2,17 @@ package io.github.veron_santiago.backend.service.interfaces;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.entity.Product;
 import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillLineDTO;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface IBillLineService {
-    BillLine createBillLine(BillLineRequest billLineRequest, Bill bill, HttpServletRequest request)throws IOException;
+    BillLine createBillLine(BillLineRequest billLineRequest, Bill bill, Map<String, Product> productsByName, HttpServletRequest request)throws IOException;
     BillLineDTO getBillLineById(Long id, HttpServletRequest request);
     List<BillLineDTO> getAllBillLinesByBillId(Long id, HttpServletRequest request);
 }
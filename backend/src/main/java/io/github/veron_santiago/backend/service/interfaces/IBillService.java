@@ -1,7 +1,9 @@
 package io.github.veron_santiago.backend.service.interfaces;
 
+import io.github.veron_santiago.backend.presentation.dto.request.BillFilter;
 import io.github.veron_santiago.backend.presentation.dto.request.BillRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillDTO;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPageDTO;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
@@ -11,4 +13,6 @@ public interface IBillService {
     BillDTO createBill(BillRequest billRequest, HttpServletRequest request) throws IOException;
     BillDTO getBillById(Long id, HttpServletRequest request);
     List<BillDTO> getAllBills(HttpServletRequest request);
+    BillPageDTO getBillPage(BillFilter filter, String cursor, int size, HttpServletRequest request);
+    long countBills(BillFilter filter, HttpServletRequest request);
 }
@@ -0,0 +1,12 @@
+package io.github.veron_santiago.backend.service.interfaces;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface IBlobStore {
+    String put(String key, byte[] content, String contentType) throws IOException;
+    byte[] read(String location) throws IOException;
+    Optional<Path> localFile(String location);
+    void delete(String location) throws IOException;
+}
@@ -19,8 +19,8 @@ public interface ICompanyService {
     CompanyDTO getCompany(HttpServletRequest request);
     CompanyDTO updateAddress(CompanyUpdateAddress companyUpdateAddress, HttpServletRequest request);
     CompanyDTO updateName(CompanyUpdateName companyUpdateName, HttpServletRequest request);
-    void updateEmail(CompanyUpdateEmail companyUpdateEmail, HttpServletRequest request);
-    void updatePassword(CompanyUpdatePassword updatePassword, HttpServletRequest request);
+    AuthResponse updateEmail(CompanyUpdateEmail companyUpdateEmail, HttpServletRequest request);
+    AuthResponse updatePassword(CompanyUpdatePassword updatePassword, HttpServletRequest request);
     String getLogo(HttpServletRequest request);
     void uploadLogo(MultipartFile file, HttpServletRequest request) throws IOException;
     void deleteCompany(HttpServletRequest request);
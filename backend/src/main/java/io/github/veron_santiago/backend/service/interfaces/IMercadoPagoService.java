@@ -1,14 +1,15 @@
 package io.github.veron_santiago.backend.service.interfaces;
 
-import io.github.veron_santiago.backend.persistence.entity.Company;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 
 public interface IMercadoPagoService {
     String buildAuthUrl(HttpServletRequest request);
     void exchangeCodeForTokens(String code, String state, HttpServletRequest request);
-    String createPaymentLink(Company company, BigDecimal amount);
+    String createPaymentLink(Long companyId, String companyName, BigDecimal amount);
+    void refreshAccessTokenIfExpiring(Long companyId, Duration margin);
 }
@@ -1,12 +1,18 @@
 package io.github.veron_santiago.backend.service.interfaces;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPdfDTO;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.util.Optional;
 
 public interface IPdfService {
-    String generateBillPdf(Bill bill, HttpServletRequest request, boolean includeQr, byte[] qrBytes) throws IOException;
-    String getPdfByBillId(Long billId, HttpServletRequest request) throws AccessDeniedException;
+    RenderedPdf generateBillPdf(Bill bill, boolean includeQr, byte[] qrBytes) throws IOException;
+    BillPdfDTO getPdfByBillId(Long billId, HttpServletRequest request) throws AccessDeniedException;
+    Optional<PdfFile> getPdfFile(Long billId, HttpServletRequest request) throws IOException;
+
+    record RenderedPdf(String path, String fileName, byte[] content, String hash) {}
+    record PdfFile(String location, String fileName, String hash) {}
 }
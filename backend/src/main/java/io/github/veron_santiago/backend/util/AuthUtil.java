@@ -1,27 +1,51 @@
 package io.github.veron_santiago.backend.util;
 
+import io.github.veron_santiago.backend.configuration.security.CompanyPrincipal;
 import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
 import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AuthUtil {
-    private final JwtUtil jwtUtil;
     private final ICompanyRepository companyRepository;
+    private final CompanySnapshotCache snapshotCache;
 
-    public AuthUtil(ICompanyRepository companyRepository, JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    public AuthUtil(ICompanyRepository companyRepository, CompanySnapshotCache snapshotCache) {
         this.companyRepository = companyRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     public Long getAuthenticatedCompanyId(HttpServletRequest request) {
-        String token = extractTokenFromHeader(request);
-        return Long.valueOf(jwtUtil.extractSubject(token));
+        return getAuthenticatedPrincipal().companyId();
     }
 
+    // JwtTokenValidator ya verificó la firma del token y dejó la compañía en el contexto de seguridad
+    public CompanyPrincipal getAuthenticatedPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CompanyPrincipal principal) {
+            return principal;
+        }
+        throw new AuthenticationCredentialsNotFoundException("Token no encontrado en el header");
+    }
+
+    // Para lecturas: copia inmutable cacheada, sin colecciones ni tokens de Mercado Pago
+    public CompanySnapshot getCompanySnapshot(HttpServletRequest request){
+        return getCompanySnapshotById(getAuthenticatedCompanyId(request));
+    }
+
+    public CompanySnapshot getCompanySnapshotById(Long id){
+        return snapshotCache.get(id)
+                .orElseThrow( () -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
+    }
+
+    // Para modificaciones: entidad gestionada; quien la guarda invalida CompanySnapshotCache
     public Company getCompanyByRequest(HttpServletRequest request){
         Long companyId = getAuthenticatedCompanyId(request);
         return companyRepository.findById(companyId)
@@ -33,12 +57,4 @@ public class AuthUtil {
                 .orElseThrow( () -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
     }
 
-    private String extractTokenFromHeader(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        } else {
-            throw new RuntimeException("Token no encontrado en el header");
-        }
-    }
-}
\ No newline at end of file
+}
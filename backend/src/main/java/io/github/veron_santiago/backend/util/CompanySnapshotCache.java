@@ -0,0 +1,53 @@
+package io.github.veron_santiago.backend.util;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+public class CompanySnapshotCache {
+
+    private final LoadingCache<Long, Optional<CompanySnapshot>> cache;
+
+    public CompanySnapshotCache(ICompanyRepository companyRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.company-cache.ttl:5m}") Duration ttl,
+                                @Value("${app.company-cache.max-size:10000}") long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(CacheLoader.from(companyRepository::findSnapshotById));
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "company.snapshot");
+    }
+
+    public Optional<CompanySnapshot> get(Long companyId) {
+        return cache.getUnchecked(companyId);
+    }
+
+    public void invalidate(Long companyId) {
+        if (companyId == null) return;
+        cache.invalidate(companyId);
+        // Un request concurrente puede recargar la fila vieja antes del commit: se invalida de nuevo al confirmar
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(companyId);
+                }
+            });
+        }
+    }
+
+}
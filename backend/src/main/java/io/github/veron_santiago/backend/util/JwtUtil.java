@@ -21,43 +21,60 @@ import java.util.UUID;
 @Component
 public class JwtUtil {
 
-    @Value("${security.jwt.private-key}")
-    private String privateKey;
-
-    @Value("${security.jwt.user.generator}")
-    private String userGenerator;
-
     private static final long EXPIRATION_TIME_DEFAULT = 86400000L;
     private static final long EXPIRATION_TIME_REMEMBER_ME = 604800000L;
 
     private final ICompanyRepository companyRepository;
-
-    public JwtUtil(ICompanyRepository companyRepository) {
+    private final String userGenerator;
+    // Algorithm y JWTVerifier son inmutables y thread-safe: se arman una sola vez por secreto
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Algorithm stateAlgorithm;
+    private final JWTVerifier stateVerifier;
+
+    public JwtUtil(ICompanyRepository companyRepository,
+                   @Value("${security.jwt.private-key}") String privateKey,
+                   @Value("${security.jwt.user.generator}") String userGenerator,
+                   @Value("${app.mp.state-secret:${security.jwt.private-key}}") String stateSecret) {
         this.companyRepository = companyRepository;
+        this.userGenerator = userGenerator;
+        this.algorithm = Algorithm.HMAC256(privateKey);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(userGenerator)
+                .build();
+        this.stateAlgorithm = Algorithm.HMAC256(stateSecret);
+        this.stateVerifier = JWT.require(stateAlgorithm).build();
     }
 
-    public String generateState(Long companyId, String secret) {
-        Algorithm algorithm = Algorithm.HMAC256(secret);
+    public String generateState(Long companyId) {
         return JWT.create()
                 .withJWTId(UUID.randomUUID().toString())
                 .withSubject(companyId.toString())
                 .withIssuedAt(new Date())
                 .withExpiresAt(new Date(System.currentTimeMillis() + 5 * 60 * 1000))
-                .sign(algorithm);
+                .sign(stateAlgorithm);
     }
 
-    public Long validateState(String state, String secret) {
-        Algorithm algorithm = Algorithm.HMAC256(secret);
-        JWTVerifier verifier = JWT.require(algorithm).build();
-        DecodedJWT decodedJWT = verifier.verify(state);
+    public Long validateState(String state) {
+        DecodedJWT decodedJWT = stateVerifier.verify(state);
         return Long.valueOf(decodedJWT.getSubject());
     }
 
     public String createToken(Authentication authentication, boolean rememberMe){
-        Algorithm algorithm = Algorithm.HMAC256(privateKey);
         String  companyName = authentication.getPrincipal().toString();
         Company company = companyRepository.findById(Long.valueOf(companyName))
                 .orElseThrow( () -> new ObjectNotFoundException(ErrorMessages.COMPANY_NOT_FOUND.getMessage()));
+        return createToken(company, rememberMe);
+    }
+
+    // Token nuevo tras cambiar credenciales: conserva la duración de la sesión que lo pidió
+    public String renewToken(Company company, String currentToken){
+        DecodedJWT current = validateToken(currentToken);
+        boolean rememberMe = current.getExpiresAt().getTime() - current.getIssuedAt().getTime() > EXPIRATION_TIME_DEFAULT;
+        return createToken(company, rememberMe);
+    }
+
+    private String createToken(Company company, boolean rememberMe){
         return JWT.create()
                 .withIssuer(userGenerator)
                 .withSubject(company.getId().toString())
@@ -72,12 +89,7 @@ public class JwtUtil {
 
     public DecodedJWT validateToken(String token){
         try {
-            Algorithm algorithm = Algorithm.HMAC256(privateKey);
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(userGenerator)
-                    .build();
-            DecodedJWT decodedJWT = verifier.verify(token);
-            return decodedJWT;
+            return verifier.verify(token);
         } catch (JWTVerificationException e){
             throw new JWTVerificationException("Token inválido");
         }
@@ -116,7 +128,6 @@ public class JwtUtil {
     }
 
     public String generateVerificationToken(String email){
-        Algorithm algorithm = Algorithm.HMAC256(privateKey);
         return JWT.create()
                 .withIssuer(userGenerator)
                 .withSubject(email)
@@ -2,6 +2,7 @@ package io.github.veron_santiago.backend.util.mapper;
 
 import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.projection.BillSummary;
 import io.github.veron_santiago.backend.persistence.repository.IBillLineRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICustomerRepository;
@@ -9,6 +10,8 @@ import io.github.veron_santiago.backend.presentation.dto.response.BillDTO;
 import org.mapstruct.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
@@ -21,6 +24,17 @@ public interface BillMapper {
     BillDTO billToBillDTO(Bill bill,
                           @MappingTarget BillDTO billDTO);
 
+    @Mapping(target = "billLines", source = "lineIds", qualifiedByName = "splitLineIds")
+    BillDTO billSummaryToBillDTO(BillSummary summary);
+
+    @Named("splitLineIds")
+    default List<Long> splitLineIds(String lineIds) {
+        if (lineIds == null || lineIds.isEmpty()) return new ArrayList<>();
+        return Arrays.stream(lineIds.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "customer", ignore = true)
     @Mapping(target = "company", ignore = true)
@@ -0,0 +1,86 @@
+package io.github.veron_santiago.backend.configuration.app;
+
+import io.github.veron_santiago.backend.service.exception.BadGatewayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+public class CircuitBreakerInterceptorTest {
+
+    private static final String PREFERENCES = "https://api.mercadopago.com/checkout/preferences";
+
+    private RestTemplate restTemplate;
+    private CircuitBreakerInterceptor breaker;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        breaker = new CircuitBreakerInterceptor("api.mercadopago.com", 3, Duration.ofMillis(200));
+        restTemplate.getInterceptors().add(breaker);
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresWithoutCallingUpstream() {
+        server.expect(ExpectedCount.times(3), requestTo(PREFERENCES)).andRespond(withServerError());
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(PREFERENCES, String.class));
+        }
+
+        assertTrue(breaker.isOpen());
+        assertThrows(BadGatewayException.class, () -> restTemplate.getForObject(PREFERENCES, String.class));
+        server.verify();
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsFailures() {
+        server.expect(ExpectedCount.times(4), requestTo(PREFERENCES)).andRespond(withBadRequest());
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> restTemplate.getForObject(PREFERENCES, String.class));
+        }
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void halfOpenProbeClosesCircuitOnSuccess() throws InterruptedException {
+        server.expect(ExpectedCount.times(3), requestTo(PREFERENCES)).andRespond(withServerError());
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(PREFERENCES, String.class));
+        }
+        server.verify();
+        server.reset();
+
+        Thread.sleep(250);
+        server.expect(ExpectedCount.times(2), requestTo(PREFERENCES)).andRespond(withSuccess("{}", null));
+
+        assertEquals("{}", restTemplate.getForObject(PREFERENCES, String.class));
+        assertFalse(breaker.isOpen());
+        assertEquals("{}", restTemplate.getForObject(PREFERENCES, String.class));
+    }
+
+    @Test
+    void otherHostsBypassOpenCircuit() {
+        server.expect(ExpectedCount.times(3), requestTo(PREFERENCES)).andRespond(withServerError());
+        server.expect(requestTo("https://res.cloudinary.com/logo.png")).andRespond(withSuccess("png", null));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(PREFERENCES, String.class));
+        }
+
+        assertEquals("png", restTemplate.getForObject("https://res.cloudinary.com/logo.png", String.class));
+    }
+
+}
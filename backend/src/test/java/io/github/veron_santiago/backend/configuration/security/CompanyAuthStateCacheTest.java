@@ -0,0 +1,71 @@
+package io.github.veron_santiago.backend.configuration.security;
+
+import io.github.veron_santiago.backend.persistence.projection.CompanyAuthState;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CompanyAuthStateCacheTest {
+
+    @Mock private ICompanyRepository companyRepository;
+
+    private CompanyAuthStateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CompanyAuthStateCache(companyRepository, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void isValid_hitsDatabaseOncePerTtl() {
+        when(companyRepository.findAuthStateById(1L)).thenReturn(Optional.of(new CompanyAuthState(true, null)));
+
+        assertTrue(cache.isValid(1L, Instant.now()));
+        assertTrue(cache.isValid(1L, Instant.now()));
+
+        verify(companyRepository, times(1)).findAuthStateById(1L);
+    }
+
+    @Test
+    void isValid_rejectsMissingOrUnverifiedCompany() {
+        when(companyRepository.findAuthStateById(1L)).thenReturn(Optional.empty());
+        when(companyRepository.findAuthStateById(2L)).thenReturn(Optional.of(new CompanyAuthState(false, null)));
+
+        assertFalse(cache.isValid(1L, Instant.now()));
+        assertFalse(cache.isValid(2L, Instant.now()));
+    }
+
+    @Test
+    void isValid_rejectsTokensIssuedBeforeCredentialChange() {
+        Instant changedAt = Instant.parse("2025-05-01T10:00:00.750Z");
+        when(companyRepository.findAuthStateById(1L)).thenReturn(Optional.of(new CompanyAuthState(true, changedAt)));
+
+        assertFalse(cache.isValid(1L, Instant.parse("2025-05-01T09:59:59Z")));
+        assertTrue(cache.isValid(1L, Instant.parse("2025-05-01T10:00:00Z")));
+        assertFalse(cache.isValid(1L, null));
+    }
+
+    @Test
+    void invalidate_reloadsState() {
+        when(companyRepository.findAuthStateById(1L))
+                .thenReturn(Optional.of(new CompanyAuthState(true, null)))
+                .thenReturn(Optional.empty());
+
+        assertTrue(cache.isValid(1L, Instant.now()));
+        cache.invalidate(1L);
+
+        assertFalse(cache.isValid(1L, Instant.now()));
+    }
+
+}
@@ -0,0 +1,127 @@
+package io.github.veron_santiago.backend.configuration.security.filter;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.github.veron_santiago.backend.configuration.security.CompanyAuthStateCache;
+import io.github.veron_santiago.backend.configuration.security.CompanyPrincipal;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.CompanySnapshotCache;
+import io.github.veron_santiago.backend.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtTokenValidatorTest {
+
+    private static final String TOKEN = JWT.create()
+            .withIssuer("AUTH-JWT")
+            .withSubject("7")
+            .withClaim("email", "empresa@mail.com")
+            .withClaim("companyName", "Empresa")
+            .withIssuedAt(new Date())
+            .sign(Algorithm.HMAC256("secret"));
+
+    @Mock private JwtUtil jwtUtil;
+    @Mock private UserDetailsService userDetailsService;
+    @Mock private ICompanyRepository companyRepository;
+    @Mock private CompanyAuthStateCache authStateCache;
+    @Mock private CompanySnapshotCache snapshotCache;
+
+    private JwtTokenValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        validator = new JwtTokenValidator(jwtUtil, userDetailsService, authStateCache, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void validToken_setsCompanyPrincipalAndVerifiesOnce() throws Exception {
+        DecodedJWT decoded = stubValidToken();
+        when(authStateCache.isValid(7L, decoded.getIssuedAtAsInstant())).thenReturn(true);
+
+        AuthUtil authUtil = new AuthUtil(companyRepository, snapshotCache);
+        MockHttpServletRequest request = authenticatedRequest();
+        validator.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(new CompanyPrincipal(7L, "empresa@mail.com", "Empresa"), authUtil.getAuthenticatedPrincipal());
+        assertEquals(7L, authUtil.getAuthenticatedCompanyId(request));
+        assertEquals(7L, authUtil.getAuthenticatedCompanyId(request));
+        verify(jwtUtil, times(1)).validateToken(TOKEN);
+        verifyNoInteractions(userDetailsService, companyRepository);
+    }
+
+    @Test
+    void revokedToken_isNotAuthenticated() throws Exception {
+        DecodedJWT decoded = JWT.decode(TOKEN);
+        when(jwtUtil.validateToken(TOKEN)).thenReturn(decoded);
+        when(authStateCache.isValid(eq(7L), any())).thenReturn(false);
+
+        MockFilterChain chain = new MockFilterChain();
+        validator.doFilter(authenticatedRequest(), new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void databaseMode_loadsCompanyDetails() throws Exception {
+        validator = new JwtTokenValidator(jwtUtil, userDetailsService, authStateCache, false);
+        stubValidToken();
+        when(userDetailsService.loadUserByUsername("7")).thenReturn(User.withUsername("7").password("x").build());
+
+        validator.doFilter(authenticatedRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(7L, new AuthUtil(companyRepository, snapshotCache).getAuthenticatedPrincipal().companyId());
+        verifyNoInteractions(authStateCache);
+    }
+
+    @Test
+    void missingToken_leavesContextEmpty() throws Exception {
+        validator.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertThrows(AuthenticationCredentialsNotFoundException.class,
+                () -> new AuthUtil(companyRepository, snapshotCache).getAuthenticatedPrincipal());
+        verifyNoInteractions(jwtUtil, userDetailsService);
+    }
+
+    private DecodedJWT stubValidToken() {
+        DecodedJWT decoded = JWT.decode(TOKEN);
+        when(jwtUtil.validateToken(TOKEN)).thenReturn(decoded);
+        when(jwtUtil.extractCompanyName(decoded)).thenReturn("Empresa");
+        return decoded;
+    }
+
+    private MockHttpServletRequest authenticatedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        return request;
+    }
+
+}
@@ -0,0 +1,118 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.Customer;
+import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
+import io.github.veron_santiago.backend.presentation.dto.request.BillRequest;
+import io.github.veron_santiago.backend.service.implementation.BillLineServiceImpl;
+import io.github.veron_santiago.backend.service.implementation.BillNumberAllocator;
+import io.github.veron_santiago.backend.service.implementation.BillPdfWorker;
+import io.github.veron_santiago.backend.service.implementation.BillServiceImpl;
+import io.github.veron_santiago.backend.service.implementation.ContentStore;
+import io.github.veron_santiago.backend.service.implementation.LogoCache;
+import io.github.veron_santiago.backend.service.implementation.QrCodeService;
+import io.github.veron_santiago.backend.service.interfaces.ICustomerService;
+import io.github.veron_santiago.backend.service.interfaces.IMercadoPagoService;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.mapper.BillLineMapper;
+import io.github.veron_santiago.backend.util.mapper.BillMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+public class BillBatchInsertTest {
+
+    private static final int LINES = 17;
+
+    @Autowired
+    private IBillRepository billRepository;
+    @Autowired
+    private IBillLineRepository billLineRepository;
+    @Autowired
+    private ICompanyRepository companyRepository;
+    @Autowired
+    private ICustomerRepository customerRepository;
+    @Autowired
+    private IProductRepository productRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final AuthUtil authUtil = mock(AuthUtil.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final BillNumberAllocator billNumberAllocator = mock(BillNumberAllocator.class);
+
+    private BillServiceImpl billService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        billLineRepository.deleteAll();
+        billRepository.deleteAll();
+        customerRepository.deleteAll();
+        companyRepository.deleteAll();
+
+        Company company = companyRepository.saveAndFlush(
+                Company.builder()
+                        .companyName("compañia")
+                        .email("email@mail.com")
+                        .password("12345")
+                        .build()
+        );
+        customerRepository.saveAndFlush(Customer.builder().name("cliente").company(company).build());
+        when(authUtil.getAuthenticatedCompanyId(request)).thenReturn(company.getId());
+        when(billNumberAllocator.next(anyLong())).thenReturn(1L, 2L);
+
+        BillLineServiceImpl billLineService = new BillLineServiceImpl(authUtil, billLineRepository, billRepository, mock(BillLineMapper.class));
+        billService = new BillServiceImpl(billRepository, companyRepository, mock(BillMapper.class), authUtil, mock(ICustomerService.class),
+                customerRepository, billLineService, mock(BillPdfWorker.class), billNumberAllocator, productRepository,
+                mock(IMercadoPagoService.class), mock(QrCodeService.class), transactionManager, mock(LogoCache.class),
+                mock(ExecutorService.class), mock(ContentStore.class));
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void createBill_writesBillAndLinesWithOneStatementPerTable() throws IOException {
+        // La primera factura reserva los bloques de ids de las secuencias
+        createBill();
+        statistics.clear();
+
+        createBill();
+
+        // Dos consultas (productos y cliente) y un insert en batch para la factura y otro para sus líneas
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(LINES + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(billLineRepository.count()).isEqualTo(2L * LINES);
+    }
+
+    private void createBill() throws IOException {
+        List<BillLineRequest> lines = IntStream.rangeClosed(1, LINES)
+                .mapToObj(i -> new BillLineRequest("producto " + i, "C" + i, 1, BigDecimal.TEN))
+                .toList();
+        billService.createBill(new BillRequest("cliente", null, null, lines, false, false), request);
+        entityManager.flush();
+    }
+
+}
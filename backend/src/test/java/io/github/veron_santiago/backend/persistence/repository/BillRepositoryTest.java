@@ -4,6 +4,9 @@ import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
 import io.github.veron_santiago.backend.persistence.entity.Company;
 import io.github.veron_santiago.backend.persistence.entity.Customer;
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import io.github.veron_santiago.backend.persistence.projection.BillLineRow;
+import io.github.veron_santiago.backend.presentation.dto.request.BillFilter;
 import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,12 +14,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 
 import static org.assertj.core.api.Assertions.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @DataJpaTest
 public class BillRepositoryTest {
@@ -182,6 +187,61 @@ public class BillRepositoryTest {
         assertThat(bills.getFirst().getCustomerName()).isEqualTo("cliente");
     }
 
+    @Test
+    void keysetPagesFollowIssueDateAndBillNumber() {
+        LocalDate today = LocalDate.now();
+        billRepository.saveAndFlush(bill(101L, today, 20, null));
+        billRepository.saveAndFlush(bill(102L, today.minusDays(1), 30, today.plusDays(29)));
+        billRepository.saveAndFlush(bill(103L, today.minusDays(2), 40, null));
+
+        Specification<Bill> spec = BillSpecifications.matching(savedCompany.getId(), null);
+        List<BillKey> first = billRepository.findKeysNewestFirst(spec, 2);
+        assertThat(first).extracting(BillKey::billNumber).containsExactly(101L, 100L);
+
+        BillKey last = first.getLast();
+        List<BillKey> second = billRepository.findKeysNewestFirst(
+                spec.and(BillSpecifications.before(last.issueDate(), last.billNumber())), 2);
+        assertThat(second).extracting(BillKey::billNumber).containsExactly(102L, 103L);
+    }
+
+    @Test
+    void filtersAreAppliedToPagesAndCount() {
+        LocalDate today = LocalDate.now();
+        billRepository.saveAndFlush(bill(101L, today.minusDays(10), 20, null));
+        billRepository.saveAndFlush(bill(102L, today.minusDays(5), 500, today.plusDays(25)));
+
+        BillFilter amountAndQr = new BillFilter(null, null, null, null, BigDecimal.valueOf(100), null, true, null);
+        assertThat(billRepository.findAll(BillSpecifications.matching(savedCompany.getId(), amountAndQr)))
+                .extracting(Bill::getBillNumber).containsExactly(102L);
+
+        BillFilter range = new BillFilter(today.minusDays(7), today, savedCustomer.getId(), "CLIEN", null, null, null, null);
+        assertThat(billRepository.count(BillSpecifications.matching(savedCompany.getId(), range))).isEqualTo(2);
+
+        Company other = companyRepository.saveAndFlush(
+                Company.builder()
+                        .companyName("otra")
+                        .email("otra@mail.com")
+                        .password("pwd")
+                        .build()
+        );
+        assertThat(billRepository.count(BillSpecifications.matching(other.getId(), null))).isZero();
+    }
+
+    @Test
+    void streamWithLinesReturnsOneRowPerLineAndBillsWithoutLines() {
+        billLineRepository.saveAndFlush(line("b", savedBill));
+        billLineRepository.saveAndFlush(line("a", savedBill));
+        billRepository.saveAndFlush(bill(101L, LocalDate.now().plusDays(1), 20, null));
+        entityManager.clear();
+
+        try (Stream<BillLineRow> rows = billRepository.streamWithLinesByCompanyId(savedCompany.getId())) {
+            List<String> exported = rows
+                    .map(row -> row.bill().getBillNumber() + ":" + (row.line() == null ? "-" : row.line().getName()))
+                    .toList();
+            assertThat(exported).containsExactly("100:b", "100:a", "101:-");
+        }
+    }
+
     @Test
     void deletingBillCascadesBillLines() {
         BillLine line = billLineRepository.saveAndFlush(
@@ -203,5 +263,27 @@ public class BillRepositoryTest {
         assertThat(billLineRepository.findById(line.getId())).isEmpty();
     }
 
+    private BillLine line(String name, Bill bill) {
+        return BillLine.builder()
+                .name(name)
+                .quantity(1)
+                .price(BigDecimal.TEN)
+                .total(BigDecimal.TEN)
+                .bill(bill)
+                .build();
+    }
+
+    private Bill bill(Long number, LocalDate issueDate, int total, LocalDate dueDate) {
+        return Bill.builder()
+                .billNumber(number)
+                .issueDate(issueDate)
+                .dueDate(dueDate)
+                .totalAmount(BigDecimal.valueOf(total))
+                .customerName(savedCustomer.getName())
+                .customerEmail(savedCustomer.getEmail())
+                .company(savedCompany)
+                .customer(savedCustomer)
+                .build();
+    }
 
 }
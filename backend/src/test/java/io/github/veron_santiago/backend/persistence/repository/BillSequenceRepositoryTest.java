@@ -0,0 +1,63 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.BillSequence;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+public class BillSequenceRepositoryTest {
+
+    @Autowired
+    private IBillSequenceRepository billSequenceRepository;
+    @Autowired
+    private ICompanyRepository companyRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        billSequenceRepository.deleteAll();
+        companyRepository.deleteAll();
+
+        company = companyRepository.saveAndFlush(
+                Company.builder()
+                        .companyName("compañia")
+                        .email("email@mail.com")
+                        .password("12345")
+                        .build()
+        );
+    }
+
+    @Test
+    void increment_existingSequence() {
+        billSequenceRepository.saveAndFlush(
+                BillSequence.builder()
+                        .company(company)
+                        .lastNumber(5L)
+                        .build()
+        );
+        entityManager.clear();
+
+        int updated = billSequenceRepository.increment(company.getId(), 3);
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(billSequenceRepository.findLastNumber(company.getId())).contains(8L);
+    }
+
+    @Test
+    void increment_missingSequence() {
+        int updated = billSequenceRepository.increment(company.getId(), 1);
+
+        assertThat(updated).isZero();
+        assertThat(billSequenceRepository.findLastNumber(company.getId())).isEmpty();
+    }
+
+}
@@ -0,0 +1,118 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.projection.BillSummary;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BillSummaryQueryTest {
+
+    @Autowired
+    private IBillRepository billRepository;
+    @Autowired
+    private IBillLineRepository billLineRepository;
+    @Autowired
+    private ICompanyRepository companyRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Company company;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        billLineRepository.deleteAll();
+        billRepository.deleteAll();
+        companyRepository.deleteAll();
+
+        company = companyRepository.saveAndFlush(
+                Company.builder()
+                        .companyName("compañia")
+                        .email("email@mail.com")
+                        .password("12345")
+                        .build()
+        );
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void summariesUseOneStatementRegardlessOfBillCount() {
+        persistBills(1, 3);
+        assertThat(loadSummaries()).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        persistBills(4, 40);
+        assertThat(loadSummaries()).hasSize(40);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void summariesAggregateLineIdsInOrder() {
+        List<Long> lineIds = persistBill(1L, 3);
+        persistBill(2L, 0);
+        entityManager.clear();
+
+        List<BillSummary> summaries = billRepository.findSummariesByCompanyId(company.getId());
+
+        assertThat(summaries).extracting(BillSummary::billNumber).containsExactly(2L, 1L);
+        assertThat(summaries.get(0).lineIds()).isNullOrEmpty();
+        assertThat(summaries.get(1).lineIds()).isEqualTo(lineIds.get(0) + "," + lineIds.get(1) + "," + lineIds.get(2));
+        assertThat(summaries.get(1).companyId()).isEqualTo(company.getId());
+    }
+
+    private List<BillSummary> loadSummaries() {
+        entityManager.clear();
+        statistics.clear();
+        return billRepository.findSummariesByCompanyId(company.getId());
+    }
+
+    private void persistBills(int from, int to) {
+        for (long number = from; number <= to; number++) {
+            persistBill(number, 2);
+        }
+    }
+
+    private List<Long> persistBill(long billNumber, int lines) {
+        Bill bill = billRepository.save(
+                Bill.builder()
+                        .billNumber(billNumber)
+                        .issueDate(LocalDate.now())
+                        .totalAmount(BigDecimal.valueOf(10L * Math.max(lines, 1)))
+                        .customerName("cliente")
+                        .company(company)
+                        .build()
+        );
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            ids.add(billLineRepository.save(
+                    BillLine.builder()
+                            .name("producto " + i)
+                            .quantity(1)
+                            .price(BigDecimal.TEN)
+                            .total(BigDecimal.TEN)
+                            .bill(bill)
+                            .build()
+            ).getId());
+        }
+        entityManager.flush();
+        return ids;
+    }
+
+}
@@ -161,6 +161,24 @@ public class ProductRepositoryTest {
         assertThat(products.getFirst().getName()).isEqualTo("product");
     }
 
+    @Test
+    void findByCompanyIdAndNamesOrCodesMatchesNameOrCode() {
+        Product other = productRepository.saveAndFlush(
+                Product.builder()
+                        .name("Otro Producto")
+                        .code("CODE2")
+                        .price(BigDecimal.valueOf(20))
+                        .company(savedCompany)
+                        .build()
+        );
+
+        List<Product> byName = productRepository.findByCompanyIdAndNamesOrCodes(savedCompany.getId(), List.of("otro producto"), List.of());
+        List<Product> byCode = productRepository.findByCompanyIdAndNamesOrCodes(savedCompany.getId(), List.of("inexistente"), List.of("CODE1"));
+
+        assertThat(byName).extracting(Product::getId).containsExactly(other.getId());
+        assertThat(byCode).extracting(Product::getId).containsExactly(savedProduct.getId());
+    }
+
 
 
 }
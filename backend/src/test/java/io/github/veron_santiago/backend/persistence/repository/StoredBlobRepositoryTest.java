@@ -0,0 +1,66 @@
+package io.github.veron_santiago.backend.persistence.repository;
+
+import io.github.veron_santiago.backend.persistence.entity.StoredBlob;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+public class StoredBlobRepositoryTest {
+
+    private static final String HASH = "a".repeat(64);
+    private static final String LOCATION = "http://localhost:8080/files/bills/" + HASH + ".pdf";
+
+    @Autowired
+    private IStoredBlobRepository storedBlobRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        storedBlobRepository.deleteAll();
+    }
+
+    @Test
+    void insert_startsWithOneReference() {
+        storedBlobRepository.insert(HASH, LOCATION, "application/pdf", 10, Instant.now());
+        entityManager.clear();
+
+        StoredBlob blob = storedBlobRepository.findById(HASH).orElseThrow();
+        assertThat(blob.getRefCount()).isEqualTo(1);
+        assertThat(blob.getLocation()).isEqualTo(LOCATION);
+        assertThat(storedBlobRepository.findLocationByHash(HASH)).contains(LOCATION);
+    }
+
+    @Test
+    void insert_duplicateHashFails() {
+        storedBlobRepository.insert(HASH, LOCATION, "application/pdf", 10, Instant.now());
+
+        assertThatThrownBy(() -> storedBlobRepository.insert(HASH, LOCATION, "application/pdf", 10, Instant.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void acquireAndRelease_countReferences() {
+        storedBlobRepository.insert(HASH, LOCATION, "application/pdf", 10, Instant.now());
+
+        assertThat(storedBlobRepository.acquire(HASH)).isEqualTo(1);
+        assertThat(storedBlobRepository.acquire("b".repeat(64))).isZero();
+        assertThat(storedBlobRepository.release(LOCATION, 1)).isEqualTo(1);
+        assertThat(storedBlobRepository.release("https://cdn/legacy.pdf", 1)).isZero();
+        entityManager.clear();
+        assertThat(storedBlobRepository.findById(HASH).orElseThrow().getRefCount()).isEqualTo(1);
+
+        storedBlobRepository.release(LOCATION, 5);
+        entityManager.clear();
+        assertThat(storedBlobRepository.findById(HASH).orElseThrow().getRefCount()).isZero();
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.projection.BillLineRow;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.service.exception.InvalidFieldException;
+import io.github.veron_santiago.backend.service.interfaces.IBillExportService;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BillExportServiceImplTest {
+
+    @Mock private IBillRepository billRepository;
+    @Mock private AuthUtil authUtil;
+    @Mock private EntityManager entityManager;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private HttpServletRequest request;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BillExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new BillExportServiceImpl(billRepository, authUtil, entityManager, objectMapper, transactionManager);
+    }
+
+    @Test
+    void exportNdjson_groupsLinesUnderTheirBill() throws Exception {
+        Bill first = bill(1L, "Cliente");
+        Bill second = bill(2L, "Otro");
+        when(billRepository.streamWithLinesByCompanyId(1L)).thenReturn(Stream.of(
+                new BillLineRow(first, line("A", 1)),
+                new BillLineRow(first, line("B", 2)),
+                new BillLineRow(second, null)
+        ));
+
+        String[] records = export(IBillExportService.Format.NDJSON, true).split("\n");
+
+        assertEquals(2, records.length);
+        JsonNode bill = objectMapper.readTree(records[0]);
+        assertEquals(1L, bill.get("billNumber").asLong());
+        assertEquals("2025-01-01", bill.get("issueDate").asText());
+        assertEquals(2, bill.get("lines").size());
+        assertEquals("B", bill.get("lines").get(1).get("name").asText());
+        assertEquals(0, objectMapper.readTree(records[1]).get("lines").size());
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerLineWithoutSeparators() throws Exception {
+        when(billRepository.streamByCompanyId(1L)).thenReturn(Stream.of(bill(1L, "Cliente"), bill(2L, "Otro"), bill(3L, "Tercero")));
+
+        String ndjson = export(IBillExportService.Format.NDJSON, false);
+
+        assertEquals(
+                "{\"id\":1,\"billNumber\":1,\"issueDate\":\"2025-01-01\",\"dueDate\":null,\"totalAmount\":20.00,\"customerName\":\"Cliente\","
+                        + "\"customerEmail\":null,\"customerAddress\":null,\"pdfStatus\":\"READY\",\"pdfPath\":null}\n"
+                        + "{\"id\":2,\"billNumber\":2,\"issueDate\":\"2025-01-01\",\"dueDate\":null,\"totalAmount\":20.00,\"customerName\":\"Otro\","
+                        + "\"customerEmail\":null,\"customerAddress\":null,\"pdfStatus\":\"READY\",\"pdfPath\":null}\n"
+                        + "{\"id\":3,\"billNumber\":3,\"issueDate\":\"2025-01-01\",\"dueDate\":null,\"totalAmount\":20.00,\"customerName\":\"Tercero\","
+                        + "\"customerEmail\":null,\"customerAddress\":null,\"pdfStatus\":\"READY\",\"pdfPath\":null}\n",
+                ndjson);
+    }
+
+    @Test
+    void exportCsv_escapesValuesAndRepeatsBillPerLine() throws Exception {
+        Bill bill = bill(1L, "Pérez, \"Juan\"");
+        when(billRepository.streamWithLinesByCompanyId(1L)).thenReturn(Stream.of(
+                new BillLineRow(bill, line("A", 1)),
+                new BillLineRow(bill, line("B", 2))
+        ));
+
+        String[] rows = export(IBillExportService.Format.CSV, true).split("\r\n");
+
+        assertEquals(3, rows.length);
+        assertTrue(rows[0].startsWith("id,billNumber,issueDate"));
+        assertTrue(rows[0].endsWith(",lineTotal"));
+        assertEquals("1,1,2025-01-01,,20.00,\"Pérez, \"\"Juan\"\"\",,,READY,,,A,1,10.00,10.00", rows[1]);
+        assertTrue(rows[2].endsWith(",,B,2,10.00,20.00"));
+    }
+
+    @Test
+    void exportWithoutLines_streamsBillsOnly() throws Exception {
+        when(billRepository.streamByCompanyId(1L)).thenReturn(Stream.of(bill(1L, "Cliente"), bill(2L, "Otro")));
+
+        String[] rows = export(IBillExportService.Format.CSV, false).split("\r\n");
+
+        assertEquals(3, rows.length);
+        assertFalse(rows[0].contains("line"));
+        verify(billRepository, never()).streamWithLinesByCompanyId(any());
+    }
+
+    @Test
+    void export_clearsPersistenceContextPeriodicallyAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(billRepository.streamByCompanyId(1L)).thenReturn(
+                IntStream.rangeClosed(1, 1200).mapToObj(i -> bill((long) i, "Cliente")).onClose(() -> closed.set(true))
+        );
+
+        String ndjson = export(IBillExportService.Format.NDJSON, false);
+
+        assertEquals(1200, ndjson.split("\n").length);
+        verify(entityManager, times(2)).clear();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void format_unknown_throws() {
+        assertThrows(InvalidFieldException.class, () -> IBillExportService.Format.from("xlsx"));
+        assertEquals(IBillExportService.Format.CSV, IBillExportService.Format.from("CSV"));
+    }
+
+    private String export(IBillExportService.Format format, boolean includeLines) throws Exception {
+        when(authUtil.getAuthenticatedCompanyId(request)).thenReturn(1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportBills(format, includeLines, request).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private Bill bill(Long number, String customerName) {
+        return Bill.builder()
+                .id(number)
+                .billNumber(number)
+                .issueDate(LocalDate.of(2025, 1, 1))
+                .totalAmount(new BigDecimal("20.00"))
+                .customerName(customerName)
+                .pdfStatus(PdfStatus.READY)
+                .build();
+    }
+
+    private BillLine line(String name, int quantity) {
+        return BillLine.builder()
+                .name(name)
+                .quantity(quantity)
+                .price(new BigDecimal("10.00"))
+                .total(new BigDecimal("10.00").multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+
+}
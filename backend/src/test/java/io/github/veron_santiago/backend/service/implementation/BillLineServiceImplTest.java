@@ -6,7 +6,6 @@ import io.github.veron_santiago.backend.persistence.entity.Company;
 import io.github.veron_santiago.backend.persistence.entity.Product;
 import io.github.veron_santiago.backend.persistence.repository.IBillLineRepository;
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
-import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillLineDTO;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
@@ -28,12 +27,14 @@ import org.springframework.security.access.AccessDeniedException;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,7 +43,6 @@ public class BillLineServiceImplTest {
 
     @InjectMocks private BillLineServiceImpl billLineService;
     @Mock private AuthUtil authUtil;
-    @Mock private ICompanyRepository companyRepository;
     @Mock private IBillLineRepository billLineRepository;
     @Mock private IBillRepository billRepository;
     @Mock private BillLineMapper billLineMapper;
@@ -68,7 +68,6 @@ public class BillLineServiceImplTest {
     @Test
     void createBillLine_successful_withProduct() throws IOException {
         Product product = Product.builder().id(5L).name("Producto A").build();
-        company.setProducts(Set.of(product));
 
         BillLineRequest req = new BillLineRequest("Producto A", "001", 2, new BigDecimal("100.00"));
 
@@ -82,10 +81,11 @@ public class BillLineServiceImplTest {
                 .product(product)
                 .build();
 
-        when(companyRepository.findById(companyId)).thenReturn(Optional.of(company));
         when(billLineRepository.save(any())).thenReturn(expected);
 
-        BillLine res = billLineService.createBillLine(req, bill, request);
+        BillLine res = billLineService.createBillLine(req, bill, Map.of("producto a", product), request);
+
+        verify(billLineRepository).save(argThat(line -> line.getProduct() == product));
 
         assertEquals("001", res.getCode());
         assertEquals("Producto A", res.getName());
@@ -95,8 +95,6 @@ public class BillLineServiceImplTest {
 
     @Test
     void createBillLine_successful_withoutProduct() throws IOException {
-        company.setProducts(Set.of());
-
         BillLineRequest req = new BillLineRequest("Producto Inexistente", "002", 1, new BigDecimal("50.00"));
 
         BillLine expected = BillLine.builder()
@@ -109,10 +107,9 @@ public class BillLineServiceImplTest {
                 .product(null)
                 .build();
 
-        when(companyRepository.findById(companyId)).thenReturn(Optional.of(company));
         when(billLineRepository.save(any())).thenReturn(expected);
 
-        BillLine res = billLineService.createBillLine(req, bill, request);
+        BillLine res = billLineService.createBillLine(req, bill, Map.of(), request);
 
         assertEquals("002", res.getCode());
         assertEquals("Producto Inexistente", res.getName());
@@ -129,7 +126,7 @@ public class BillLineServiceImplTest {
         BillLineRequest req = new BillLineRequest("Prod", "999", 1, new BigDecimal("1"));
 
         AccessDeniedException ex = assertThrows(AccessDeniedException.class,
-                () -> billLineService.createBillLine(req, bill, request));
+                () -> billLineService.createBillLine(req, bill, Map.of(), request));
 
         assertEquals(ErrorMessages.ACCESS_DENIED_UPDATE.getMessage(), ex.getMessage());
     }
@@ -0,0 +1,97 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.BillSequence;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.persistence.repository.IBillSequenceRepository;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BillNumberAllocatorTest {
+
+    @Mock private IBillSequenceRepository billSequenceRepository;
+    @Mock private IBillRepository billRepository;
+    @Mock private ICompanyRepository companyRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private BillNumberAllocator allocator(int blockSize) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return new BillNumberAllocator(billSequenceRepository, billRepository, companyRepository, transactionManager, blockSize);
+    }
+
+    @Test
+    void next_existingSequence() {
+        BillNumberAllocator allocator = allocator(1);
+        when(billSequenceRepository.increment(1L, 1)).thenReturn(1);
+        when(billSequenceRepository.findLastNumber(1L)).thenReturn(Optional.of(42L));
+
+        assertEquals(42L, allocator.next(1L));
+        verify(billSequenceRepository, never()).saveAndFlush(any());
+        // De a uno se une a la transacción de la factura para no dejar huecos si ésta falla
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRED, definition.getValue().getPropagationBehavior());
+    }
+
+    @Test
+    void next_missingSequence_seedsFromMaxBillNumber() {
+        BillNumberAllocator allocator = allocator(1);
+        Company company = new Company();
+        company.setId(1L);
+        when(billSequenceRepository.increment(1L, 1)).thenReturn(0, 1);
+        when(billSequenceRepository.findLastNumber(1L)).thenReturn(Optional.of(10L));
+        when(billRepository.findMaxBillNumberByCompanyId(1L)).thenReturn(9L);
+        when(companyRepository.getReferenceById(1L)).thenReturn(company);
+
+        assertEquals(10L, allocator.next(1L));
+
+        ArgumentCaptor<BillSequence> captor = ArgumentCaptor.forClass(BillSequence.class);
+        verify(billSequenceRepository).saveAndFlush(captor.capture());
+        assertEquals(9L, captor.getValue().getLastNumber());
+        assertEquals(company, captor.getValue().getCompany());
+    }
+
+    @Test
+    void next_blockSize_reservesOncePerBlock() {
+        BillNumberAllocator allocator = allocator(3);
+        when(billSequenceRepository.increment(1L, 3)).thenReturn(1);
+        when(billSequenceRepository.findLastNumber(1L)).thenReturn(Optional.of(3L), Optional.of(6L));
+
+        assertEquals(1L, allocator.next(1L));
+        assertEquals(2L, allocator.next(1L));
+        assertEquals(3L, allocator.next(1L));
+        assertEquals(4L, allocator.next(1L));
+
+        verify(billSequenceRepository, times(2)).increment(1L, 3);
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+    }
+
+    @Test
+    void next_concurrentSeed_incrementsTheRowCreatedByTheOtherRequest() {
+        BillNumberAllocator allocator = allocator(1);
+        when(billSequenceRepository.increment(1L, 1)).thenReturn(0, 1);
+        when(billSequenceRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicado"));
+        when(billSequenceRepository.findLastNumber(1L)).thenReturn(Optional.of(5L));
+
+        assertEquals(5L, allocator.next(1L));
+        verify(billSequenceRepository, times(2)).increment(1L, 1);
+    }
+
+}
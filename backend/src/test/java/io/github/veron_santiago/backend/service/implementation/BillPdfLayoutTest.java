@@ -0,0 +1,83 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BillPdfLayoutTest {
+
+    private final PdfTemplate pdfTemplate = new PdfTemplate();
+    private final BillPdfLayout layout = new BillPdfLayout(pdfTemplate);
+
+    @Test
+    void paginate_singlePageUsesEveryTemplateRow() {
+        assertEquals(List.of(17), BillPdfLayout.paginate(17, 17, 40));
+        assertEquals(List.of(3), BillPdfLayout.paginate(3, 17, 40));
+    }
+
+    @Test
+    void paginate_reservesRowsForRunningSubtotals() {
+        assertEquals(List.of(16, 2), BillPdfLayout.paginate(18, 17, 40));
+        assertEquals(List.of(16, 38, 38, 8), BillPdfLayout.paginate(100, 17, 40));
+    }
+
+    @Test
+    void drawLines_longBillSpansPagesWithSubtotals() throws IOException {
+        Bill bill = bill(200);
+        try (PDDocument document = pdfTemplate.openWithScratchFile()) {
+            document.getDocumentCatalog().getAcroForm().flatten();
+            layout.drawLines(document, bill, "00000042");
+
+            int pages = document.getNumberOfPages();
+            assertTrue(pages > 1);
+            String lastPage = text(document, pages);
+            assertTrue(lastPage.contains("Factura N° 00000042"));
+            assertTrue(lastPage.contains("Producto 200"));
+            assertTrue(lastPage.contains("Página " + pages + " de " + pages));
+            assertTrue(lastPage.contains("Transporte"));
+            assertTrue(text(document, 1).contains("Subtotal a transportar"));
+            assertTrue(text(document, 2).contains("Transporte"));
+        }
+    }
+
+    @Test
+    void drawLines_shortBillStaysOnTemplatePage() throws IOException {
+        try (PDDocument document = pdfTemplate.open()) {
+            document.getDocumentCatalog().getAcroForm().flatten();
+            layout.drawLines(document, bill(17), "00000042");
+
+            assertEquals(1, document.getNumberOfPages());
+            String text = text(document, 1);
+            assertTrue(text.contains("Producto 17"));
+            assertFalse(text.contains("Transporte"));
+        }
+    }
+
+    private String text(PDDocument document, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document);
+    }
+
+    private Bill bill(int lines) {
+        Bill bill = Bill.builder().billNumber(42L).companyName("Compañía").build();
+        List<BillLine> billLines = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            BigDecimal price = BigDecimal.valueOf(i);
+            billLines.add(BillLine.builder().id((long) i).name("Producto " + i).quantity(1).price(price).total(price).bill(bill).build());
+        }
+        bill.setBillLines(billLines);
+        return bill;
+    }
+
+}
@@ -0,0 +1,135 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.service.interfaces.IPdfService;
+import io.github.veron_santiago.backend.util.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BillPdfWorkerTest {
+
+    @Mock private IBillRepository billRepository;
+    @Mock private IPdfService pdfService;
+    @Mock private MailOutboxService mailOutboxService;
+    @Mock private MailSpool mailSpool;
+    @Mock private ContentStore contentStore;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F'};
+    private static final String HASH = ContentHash.sha256Hex(PDF);
+
+    private BillPdfWorker worker;
+    private Bill bill;
+
+    @BeforeEach
+    void setUp() {
+        worker = new BillPdfWorker(billRepository, pdfService, mailOutboxService, mailSpool, contentStore, transactionManager, new SyncTaskExecutor());
+
+        Company company = new Company();
+        company.setId(1L);
+        bill = new Bill();
+        bill.setId(10L);
+        bill.setCompany(company);
+        bill.setCustomerEmail("cliente@mail.com");
+        bill.setCompanyName("Compañía");
+        bill.setPdfStatus(PdfStatus.PENDING);
+    }
+
+    @Test
+    void submit_rendersAndMarksReady() throws IOException {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(bill));
+        when(pdfService.generateBillPdf(bill, false, null)).thenReturn(rendered("https://cdn/bills/1/00000001.pdf"));
+
+        worker.submit(10L, false, null, false);
+
+        verify(billRepository).updatePdf(10L, "https://cdn/bills/1/00000001.pdf", HASH, PdfStatus.READY);
+        verify(billRepository, never()).updatePdfStatus(any(), any());
+        verifyNoInteractions(mailOutboxService, mailSpool);
+    }
+
+    @Test
+    void submit_withEmail_enqueuesInSameTransaction() throws IOException {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(bill));
+        when(pdfService.generateBillPdf(bill, false, null)).thenReturn(rendered("https://cdn/bills/1/00000001_20250101_ABC.pdf"));
+        when(mailSpool.write(PDF)).thenReturn("/tmp/spool/1.bin");
+
+        worker.submit(10L, false, null, true);
+
+        InOrder inOrder = inOrder(transactionManager, billRepository, mailOutboxService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(billRepository).updatePdf(10L, "https://cdn/bills/1/00000001_20250101_ABC.pdf", HASH, PdfStatus.READY);
+        inOrder.verify(mailOutboxService).enqueue("cliente@mail.com", "Factura de Compañía", "PDF: ",
+                "00000001_20250101_ABC.pdf", "https://cdn/bills/1/00000001_20250101_ABC.pdf", "/tmp/spool/1.bin");
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void submit_spoolFails_enqueuesWithUrlOnly() throws IOException {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(bill));
+        when(pdfService.generateBillPdf(bill, false, null)).thenReturn(rendered("https://cdn/bills/1/00000001_20250101_ABC.pdf"));
+        when(mailSpool.write(PDF)).thenThrow(new IOException("disk full"));
+
+        worker.submit(10L, false, null, true);
+
+        verify(billRepository).updatePdf(10L, "https://cdn/bills/1/00000001_20250101_ABC.pdf", HASH, PdfStatus.READY);
+        verify(mailOutboxService).enqueue("cliente@mail.com", "Factura de Compañía", "PDF: ",
+                "00000001_20250101_ABC.pdf", "https://cdn/bills/1/00000001_20250101_ABC.pdf", null);
+    }
+
+    @Test
+    void submit_outboxTransactionFails_marksFailedAndDeletesSpooledPdf() throws IOException {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(bill));
+        when(pdfService.generateBillPdf(bill, false, null)).thenReturn(rendered("https://cdn/bills/1/00000001_20250101_ABC.pdf"));
+        when(mailSpool.write(PDF)).thenReturn("/tmp/spool/1.bin");
+        doThrow(new IllegalStateException("outbox")).when(mailOutboxService).enqueue(any(), any(), any(), any(), any(), any());
+
+        worker.render(10L, false, null, true);
+
+        verify(mailSpool).delete("/tmp/spool/1.bin");
+        verify(billRepository).updatePdfStatus(10L, PdfStatus.FAILED);
+        verify(contentStore).release("https://cdn/bills/1/00000001_20250101_ABC.pdf");
+    }
+
+    @Test
+    void submit_renderFails_marksFailed() throws IOException {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(bill));
+        when(pdfService.generateBillPdf(bill, false, null)).thenThrow(new IOException("template"));
+
+        worker.submit(10L, false, null, true);
+
+        verify(billRepository).updatePdfStatus(10L, PdfStatus.FAILED);
+        verify(billRepository, never()).updatePdf(any(), any(), any(), any());
+        verifyNoInteractions(mailOutboxService);
+    }
+
+    @Test
+    void submit_billNotFound_marksFailed() {
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.empty());
+
+        worker.submit(10L, false, null, false);
+
+        verify(billRepository).updatePdfStatus(10L, PdfStatus.FAILED);
+        verifyNoInteractions(pdfService);
+    }
+
+    private IPdfService.RenderedPdf rendered(String url) {
+        return new IPdfService.RenderedPdf(url, url.substring(url.lastIndexOf('/') + 1), PDF, HASH);
+    }
+
+}
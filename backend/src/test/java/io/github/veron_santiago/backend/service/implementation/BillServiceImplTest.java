@@ -4,17 +4,26 @@ import io.github.veron_santiago.backend.persistence.entity.Bill;
 import io.github.veron_santiago.backend.persistence.entity.BillLine;
 import io.github.veron_santiago.backend.persistence.entity.Company;
 import io.github.veron_santiago.backend.persistence.entity.Customer;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.entity.Product;
+import io.github.veron_santiago.backend.persistence.projection.BillKey;
+import io.github.veron_santiago.backend.persistence.projection.BillSummary;
 import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.persistence.repository.ICustomerRepository;
+import io.github.veron_santiago.backend.persistence.repository.IProductRepository;
 import io.github.veron_santiago.backend.presentation.dto.request.BillLineRequest;
 import io.github.veron_santiago.backend.presentation.dto.request.BillRequest;
 import io.github.veron_santiago.backend.presentation.dto.response.BillDTO;
-import io.github.veron_santiago.backend.presentation.dto.response.CustomerDTO;
+import io.github.veron_santiago.backend.presentation.dto.response.BillPageDTO;
+import io.github.veron_santiago.backend.service.exception.BadGatewayException;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
 import io.github.veron_santiago.backend.service.exception.InvalidFieldException;
 import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
+import io.github.veron_santiago.backend.service.exception.ResourceConflictException;
 import io.github.veron_santiago.backend.service.interfaces.IBillLineService;
 import io.github.veron_santiago.backend.service.interfaces.ICustomerService;
+import io.github.veron_santiago.backend.service.interfaces.IMercadoPagoService;
 import io.github.veron_santiago.backend.util.AuthUtil;
 import io.github.veron_santiago.backend.util.mapper.BillMapper;
 import io.github.veron_santiago.backend.util.mapper.CustomerMapper;
@@ -23,16 +32,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,6 +70,15 @@ class BillServiceImplTest {
     @Mock private ICustomerService customerService;
     @Mock private CustomerMapper customerMapper;
     @Mock private IBillLineService billLineService;
+    @Mock private ICustomerRepository customerRepository;
+    @Mock private IProductRepository productRepository;
+    @Mock private BillPdfWorker billPdfWorker;
+    @Mock private BillNumberAllocator billNumberAllocator;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private IMercadoPagoService mercadoPagoService;
+    @Mock private QrCodeService qrCodeService;
+    @Mock private LogoCache logoCache;
+    @Mock private ContentStore contentStore;
     @Mock private HttpServletRequest request;
 
     private Long companyId;
@@ -68,11 +96,14 @@ class BillServiceImplTest {
         line1 = new BillLineRequest("ProdA", "98422", 2, BigDecimal.valueOf(10));
         line2 = new BillLineRequest("ProdB", "41251", 3, BigDecimal.valueOf(5));
 
-        /*billRequest = new BillRequest(
+        billRequest = new BillRequest(
                 "Cliente",
+                null,
                 "cliente@mail.com",
-                List.of(line1, line2)
-        );*/
+                List.of(line1, line2),
+                false,
+                false
+        );
 
         expectedDto = new BillDTO();
         company = new Company();
@@ -85,26 +116,48 @@ class BillServiceImplTest {
     void createBill_successful() throws IOException {
 
         when(companyRepository.findById(companyId)).thenReturn(Optional.of(company));
-        CustomerDTO custDto = new CustomerDTO();
-        when(customerService.createCustomer(any(), eq(request))).thenReturn(custDto);
-        Customer createdCustomer = new Customer();
-        when(customerMapper.customerDTOToCustomer(eq(custDto), any(), any(), any())).thenReturn(createdCustomer);
+        Customer customer = new Customer();
+        when(customerRepository.findByCompanyIdAndNameIgnoreCase(companyId, "Cliente")).thenReturn(Optional.of(customer));
+        when(billNumberAllocator.next(companyId)).thenReturn(1L);
+
+        Product prodA = Product.builder().id(3L).name("ProdA").code("98422").build();
+        when(productRepository.findByCompanyIdAndNamesOrCodes(eq(companyId), any(), any())).thenReturn(List.of(prodA));
 
         BillLine bl1 = new BillLine();
         BillLine bl2 = new BillLine();
-        when(billLineService.createBillLine(eq(line1), any(), eq(request))).thenReturn(bl1);
-        when(billLineService.createBillLine(eq(line2), any(), eq(request))).thenReturn(bl2);
-        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(billLineService.createBillLine(eq(line1), any(), anyMap(), eq(request))).thenReturn(bl1);
+        when(billLineService.createBillLine(eq(line2), any(), anyMap(), eq(request))).thenReturn(bl2);
+        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> {
+            Bill saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
         when(billMapper.billToBillDTO(any(Bill.class), any(BillDTO.class))).thenReturn(expectedDto);
 
         BillDTO result = billService.createBill(billRequest, request);
         assertSame(expectedDto, result);
-        verify(billRepository, times(2)).save(any(Bill.class));
+        verify(billRepository, times(1)).save(any(Bill.class));
+        verify(transactionManager).commit(any());
         ArgumentCaptor<Bill> billCaptor = ArgumentCaptor.forClass(Bill.class);
         verify(billRepository, atLeastOnce()).save(billCaptor.capture());
         Bill actualSavedBill = billCaptor.getValue();
-        verify(billLineService).createBillLine(line1, actualSavedBill, request);
-        verify(billLineService).createBillLine(line2, actualSavedBill, request);
+        verify(billLineService).createBillLine(line1, actualSavedBill, Map.of("proda", prodA), request);
+        verify(billLineService).createBillLine(line2, actualSavedBill, Map.of("proda", prodA), request);
+        verify(productRepository).findByCompanyIdAndNamesOrCodes(companyId, Set.of("proda", "prodb"), List.of("98422", "41251"));
+        assertEquals(1L, actualSavedBill.getBillNumber());
+        assertEquals(PdfStatus.PENDING, actualSavedBill.getPdfStatus());
+        assertSame(customer, actualSavedBill.getCustomer());
+        verify(billPdfWorker).submit(7L, false, null, false);
+    }
+
+    @Test
+    void createBill_codeUsedByOtherProduct_throws() {
+        when(companyRepository.findById(companyId)).thenReturn(Optional.of(company));
+        Product other = Product.builder().id(4L).name("Otro").code("98422").build();
+        when(productRepository.findByCompanyIdAndNamesOrCodes(eq(companyId), any(), any())).thenReturn(List.of(other));
+
+        assertThrows(ResourceConflictException.class, () -> billService.createBill(billRequest, request));
+        verify(billRepository, never()).save(any());
     }
 
     @Test
@@ -117,6 +170,120 @@ class BillServiceImplTest {
         assertEquals(ErrorMessages.COMPANY_NOT_FOUND.getMessage(), ex.getMessage());
     }
 
+    @Test
+    void createBill_withQr_requestsPaymentLinkWhileLookingUpCustomer() throws Exception {
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        byte[] qrBytes = {1, 2, 3};
+        stubPersistence();
+        when(customerRepository.findByCompanyIdAndNameIgnoreCase(companyId, "Cliente")).thenAnswer(inv -> {
+            lookingUp.countDown();
+            return Optional.of(new Customer());
+        });
+        when(billNumberAllocator.next(companyId)).thenReturn(1L);
+        // Sólo responde cuando la búsqueda del cliente ya empezó: si las etapas fueran secuenciales el test falla por timeout
+        when(mercadoPagoService.createPaymentLink(eq(companyId), any(), eq(BigDecimal.valueOf(35)))).thenAnswer(inv -> {
+            assertTrue(lookingUp.await(5, TimeUnit.SECONDS));
+            return "https://mp/link";
+        });
+        when(qrCodeService.generateQrCode("https://mp/link", 200, 200)).thenReturn(qrBytes);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BillDTO result = serviceWith(executor).createBill(qrRequest(), request);
+
+            assertSame(expectedDto, result);
+        }
+        verify(transactionManager).commit(any());
+        verify(billPdfWorker).submit(7L, true, qrBytes, false);
+        ArgumentCaptor<Bill> billCaptor = ArgumentCaptor.forClass(Bill.class);
+        verify(billRepository).save(billCaptor.capture());
+        assertEquals("https://mp/link", billCaptor.getValue().getPaymentLink());
+    }
+
+    @Test
+    void createBill_paymentLinkFails_doesNotUseABillNumber() throws IOException {
+        stubPersistence();
+        when(mercadoPagoService.createPaymentLink(eq(companyId), any(), any())).thenThrow(new BadGatewayException(ErrorMessages.QR.getMessage()));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            assertThrows(BadGatewayException.class, () -> serviceWith(executor).createBill(qrRequest(), request));
+        }
+        verifyNoInteractions(billNumberAllocator, transactionManager, billPdfWorker);
+        verify(billRepository, never()).save(any());
+    }
+
+    @Test
+    void createBill_allocatesNumberInsideBillTransaction() throws IOException {
+        stubPersistence();
+        when(billNumberAllocator.next(companyId)).thenReturn(1L);
+
+        billService.createBill(billRequest, request);
+
+        InOrder inOrder = inOrder(transactionManager, billNumberAllocator, billRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(billNumberAllocator).next(companyId);
+        inOrder.verify(billRepository).save(any(Bill.class));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void createBill_lazyRender_savesSnapshotWithoutRendering() throws Exception {
+        stubPersistence();
+        company.setLogoPath("https://cdn/logos/abc.png");
+        when(billNumberAllocator.next(companyId)).thenReturn(1L);
+        when(mercadoPagoService.createPaymentLink(eq(companyId), any(), eq(BigDecimal.valueOf(35)))).thenReturn("https://mp/link");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BillServiceImpl service = serviceWith(executor);
+            ReflectionTestUtils.setField(service, "lazyRender", true);
+            service.createBill(qrRequest(), request);
+        }
+
+        ArgumentCaptor<Bill> billCaptor = ArgumentCaptor.forClass(Bill.class);
+        verify(billRepository).save(billCaptor.capture());
+        Bill saved = billCaptor.getValue();
+        assertEquals(PdfStatus.DEFERRED, saved.getPdfStatus());
+        assertEquals("https://mp/link", saved.getPaymentLink());
+        assertEquals("https://cdn/logos/abc.png", saved.getLogoPath());
+        verify(contentStore).retain("https://cdn/logos/abc.png");
+        verify(transactionManager).commit(any());
+        verifyNoInteractions(billPdfWorker, qrCodeService, logoCache);
+    }
+
+    @Test
+    void createBill_lazyRenderWithEmail_rendersNow() throws IOException {
+        stubPersistence();
+        when(billNumberAllocator.next(companyId)).thenReturn(1L);
+        ReflectionTestUtils.setField(billService, "lazyRender", true);
+
+        billService.createBill(new BillRequest("Cliente", null, "cliente@mail.com", List.of(line1, line2), false, true), request);
+
+        verify(billPdfWorker).submit(7L, false, null, true);
+        verifyNoInteractions(contentStore);
+    }
+
+    private void stubPersistence() throws IOException {
+        when(companyRepository.findById(companyId)).thenReturn(Optional.of(company));
+        lenient().when(customerRepository.findByCompanyIdAndNameIgnoreCase(companyId, "Cliente")).thenReturn(Optional.of(new Customer()));
+        when(productRepository.findByCompanyIdAndNamesOrCodes(eq(companyId), any(), any())).thenReturn(List.of());
+        lenient().when(billLineService.createBillLine(any(), any(), anyMap(), eq(request))).thenReturn(new BillLine());
+        lenient().when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> {
+            Bill saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+        lenient().when(billMapper.billToBillDTO(any(Bill.class), any(BillDTO.class))).thenReturn(expectedDto);
+    }
+
+    private BillRequest qrRequest() {
+        return new BillRequest("Cliente", null, "cliente@mail.com", List.of(line1, line2), true, false);
+    }
+
+    private BillServiceImpl serviceWith(ExecutorService executor) {
+        return new BillServiceImpl(billRepository, companyRepository, billMapper, authUtil, customerService, customerRepository,
+                billLineService, billPdfWorker, billNumberAllocator, productRepository, mercadoPagoService, qrCodeService,
+                transactionManager, logoCache, executor, contentStore);
+    }
+
 /*    @Test
     void createBill_duplicateProducts_throws() {
         BillLineRequest dup1 = new BillLineRequest("x", "1234", 1, BigDecimal.ONE);
@@ -180,32 +347,78 @@ class BillServiceImplTest {
 
     @Test
     void getAllBills_returnsList() {
-        Bill b1 = new Bill();
-        Bill b2 = new Bill();
-        b1.setCompany(company);
-        b2.setCompany(company);
-        List<Bill> bills = List.of(b1, b2);
-
-        when(billRepository.findByCompanyId(companyId)).thenReturn(bills);
+        BillSummary s1 = summary(1L);
+        BillSummary s2 = summary(2L);
+        when(billRepository.findSummariesByCompanyId(companyId)).thenReturn(List.of(s1, s2));
         BillDTO dto1 = new BillDTO();
         BillDTO dto2 = new BillDTO();
-        when(billMapper.billToBillDTO(eq(b1), any(BillDTO.class))).thenReturn(dto1);
-        when(billMapper.billToBillDTO(eq(b2), any(BillDTO.class))).thenReturn(dto2);
+        when(billMapper.billSummaryToBillDTO(s1)).thenReturn(dto1);
+        when(billMapper.billSummaryToBillDTO(s2)).thenReturn(dto2);
 
         List<BillDTO> result = billService.getAllBills(request);
 
         assertEquals(2, result.size());
         assertSame(dto1, result.get(0));
         assertSame(dto2, result.get(1));
+        verify(billRepository, never()).findByCompanyId(any());
     }
 
     @Test
     void getAllBills_emptyList() {
-        when(billRepository.findByCompanyId(companyId)).thenReturn(Collections.emptyList());
+        when(billRepository.findSummariesByCompanyId(companyId)).thenReturn(Collections.emptyList());
 
         List<BillDTO> result = billService.getAllBills(request);
 
         assertTrue(result.isEmpty());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getBillPage_returnsCursorWhenMoreRows() {
+        when(billRepository.findKeysNewestFirst(any(), eq(3))).thenReturn(List.of(
+                new BillKey(30L, LocalDate.of(2025, 3, 1), 3L),
+                new BillKey(20L, LocalDate.of(2025, 2, 1), 2L),
+                new BillKey(10L, LocalDate.of(2025, 1, 1), 1L)
+        ));
+        when(billRepository.findSummariesByIdIn(List.of(30L, 20L))).thenReturn(List.of(summary(30L), summary(20L)));
+        when(billMapper.billSummaryToBillDTO(any())).thenReturn(new BillDTO());
+
+        BillPageDTO page = billService.getBillPage(null, null, 2, request);
+
+        assertEquals(2, page.getBills().size());
+        assertEquals(new BillCursor(LocalDate.of(2025, 2, 1), 2L), BillCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getBillPage_lastPageHasNoCursor() {
+        when(billRepository.findKeysNewestFirst(any(), eq(3))).thenReturn(List.of(new BillKey(10L, LocalDate.of(2025, 1, 1), 1L)));
+        when(billRepository.findSummariesByIdIn(List.of(10L))).thenReturn(List.of(summary(10L)));
+        when(billMapper.billSummaryToBillDTO(any())).thenReturn(new BillDTO());
+
+        String cursor = new BillCursor(LocalDate.of(2025, 2, 1), 2L).encode();
+        BillPageDTO page = billService.getBillPage(null, cursor, 2, request);
+
+        assertEquals(1, page.getBills().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getBillPage_invalidCursor_throws() {
+        InvalidFieldException ex = assertThrows(InvalidFieldException.class,
+                () -> billService.getBillPage(null, "no-es-un-cursor", 20, request));
+
+        assertEquals(ErrorMessages.INVALID_CURSOR.getMessage(), ex.getMessage());
+        verify(billRepository, never()).findKeysNewestFirst(any(), anyInt());
+    }
+
+    @Test
+    void getBillPage_sizeOutOfRange_throws() {
+        assertThrows(InvalidFieldException.class, () -> billService.getBillPage(null, null, 0, request));
+        assertThrows(InvalidFieldException.class, () -> billService.getBillPage(null, null, 101, request));
+    }
+
+    private BillSummary summary(Long id) {
+        return new BillSummary(id, id, LocalDate.of(2025, 1, 1), null, BigDecimal.TEN, "Compañía", null, null,
+                "Cliente", null, null, null, PdfStatus.READY, companyId, null, null);
+    }
+
+}
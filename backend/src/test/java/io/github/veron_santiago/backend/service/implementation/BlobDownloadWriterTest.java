@@ -0,0 +1,130 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.util.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlobDownloadWriterTest {
+
+    private static final byte[] PDF = "%PDF-1.4 contenido de prueba".getBytes(StandardCharsets.US_ASCII);
+    private static final String HASH = ContentHash.sha256Hex(PDF);
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @TempDir
+    Path root;
+
+    private LocalBlobStore blobStore;
+    private BlobDownloadWriter writer;
+    private String location;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobStore = new LocalBlobStore(root, "http://localhost:8080/files", new RemoteFileClient(new RestTemplate()));
+        writer = new BlobDownloadWriter(blobStore);
+        location = blobStore.put("bills/1/00000001.pdf", PDF, "application/pdf");
+    }
+
+    @Test
+    void write_servesWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = write(new MockHttpServletRequest("GET", "/bills/1/pdf/file"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(PDF, response.getContentAsByteArray());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("max-age=31536000, private, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals(PDF.length, response.getContentLengthLong());
+    }
+
+    @Test
+    void write_matchingIfNoneMatchIsNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"otro\", W/" + ETAG);
+
+        MockHttpServletResponse response = write(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void write_servesRequestedRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-7");
+
+        MockHttpServletResponse response = write(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-7/" + PDF.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("1.4", response.getContentAsString());
+        assertEquals(3, response.getContentLengthLong());
+    }
+
+    @Test
+    void write_suffixRangeAndStaleIfRange() throws IOException {
+        MockHttpServletRequest suffix = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-6");
+        assertEquals("prueba", write(suffix).getContentAsString());
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"otro\"");
+        MockHttpServletResponse response = write(stale);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(PDF, response.getContentAsByteArray());
+    }
+
+    @Test
+    void write_rangePastTheEndIsNotSatisfiable() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + PDF.length + "-");
+
+        MockHttpServletResponse response = write(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + PDF.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void write_handsLocalFilesToContainerSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bills/1/pdf/file");
+        request.setAttribute(BlobDownloadWriter.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-");
+
+        MockHttpServletResponse response = write(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(blobStore.resolve("bills/1/00000001.pdf").toString(), request.getAttribute(BlobDownloadWriter.SENDFILE_FILENAME));
+        assertEquals(2L, request.getAttribute(BlobDownloadWriter.SENDFILE_START));
+        assertEquals((long) PDF.length, request.getAttribute(BlobDownloadWriter.SENDFILE_END));
+    }
+
+    @Test
+    void parseRange_ignoresMalformedAndMultipleRanges() {
+        assertNull(BlobDownloadWriter.parseRange("bytes=0-1,4-5", 10));
+        assertNull(BlobDownloadWriter.parseRange("bytes=5-2", 10));
+        assertNull(BlobDownloadWriter.parseRange("items=0-1", 10));
+        assertEquals(new BlobDownloadWriter.Range(8, 9), BlobDownloadWriter.parseRange("bytes=8-100", 10));
+    }
+
+    private MockHttpServletResponse write(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(location, HASH, "00000001.pdf", "application/pdf", request, response);
+        return response;
+    }
+
+}
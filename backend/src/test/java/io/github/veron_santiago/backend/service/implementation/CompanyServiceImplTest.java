@@ -1,13 +1,24 @@
 package io.github.veron_santiago.backend.service.implementation;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.github.veron_santiago.backend.configuration.security.CompanyAuthStateCache;
 import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.projection.CompanyAuthState;
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
 import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
 import io.github.veron_santiago.backend.presentation.dto.auth.AuthCreateCompany;
 import io.github.veron_santiago.backend.presentation.dto.auth.AuthResponse;
 import io.github.veron_santiago.backend.presentation.dto.response.CompanyDTO;
+import io.github.veron_santiago.backend.presentation.dto.update.CompanyUpdateAddress;
+import io.github.veron_santiago.backend.presentation.dto.update.CompanyUpdatePassword;
 import io.github.veron_santiago.backend.service.exception.ErrorMessages;
 import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
 import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.CompanySnapshotCache;
 import io.github.veron_santiago.backend.util.JwtUtil;
 import io.github.veron_santiago.backend.util.mapper.CompanyMapper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,13 +26,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,11 +52,16 @@ public class CompanyServiceImplTest {
 
     @InjectMocks private CompanyServiceImpl service;
     @Mock private ICompanyRepository companyRepository;
-    @Mock private JavaMailSender javaMailSender;
+    @Mock private MailOutboxService mailOutboxService;
     @Mock private CompanyMapper companyMapper;
     @Mock private JwtUtil jwtUtil;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private AuthUtil authUtil;
+    @Mock private ContentStore contentStore;
+    @Mock private IBillRepository billRepository;
+    @Mock private LogoCache logoCache;
+    @Mock private CompanyAuthStateCache authStateCache;
+    @Mock private CompanySnapshotCache snapshotCache;
     @Mock private HttpServletRequest request;
 
     private AuthCreateCompany createDto;
@@ -65,7 +90,7 @@ public class CompanyServiceImplTest {
         ArgumentCaptor<Company> captor = ArgumentCaptor.forClass(Company.class);
         verify(companyRepository).save(captor.capture());
         assertEquals(encodedPassword, captor.getValue().getPassword());
-        verify(javaMailSender).send(any(SimpleMailMessage.class));
+        verify(mailOutboxService).enqueue(eq(email), eq("Verificación de Correo Electrónico"), contains(token));
         assertEquals("Compañia registrada correctamente. Verifique el correo.", response.message());
     }
 
@@ -79,7 +104,7 @@ public class CompanyServiceImplTest {
         assertEquals(name, response.companyName());
         assertEquals("Ya existe una compañia registrada con ese nombre.", response.message());
         verify(companyRepository, never()).save(any());
-        verify(javaMailSender, never()).send(any(SimpleMailMessage.class));
+        verifyNoInteractions(mailOutboxService);
     }
 
     @Test
@@ -93,7 +118,7 @@ public class CompanyServiceImplTest {
         assertEquals(email, response.companyName());
         assertEquals("Ya existe una compañia registrada con ese correo.", response.message());
         verify(companyRepository, never()).save(any());
-        verify(javaMailSender, never()).send(any(SimpleMailMessage.class));
+        verifyNoInteractions(mailOutboxService);
     }
 
     @Test
@@ -130,6 +155,81 @@ public class CompanyServiceImplTest {
         service.deleteCompany(request);
 
         verify(companyRepository).deleteById(id);
+        verify(authStateCache).invalidate(id);
+    }
+
+    @Test
+    void updatePassword_revokesPreviousTokens() {
+        Company company = Company.builder().id(5L).password("encoded").build();
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(passwordEncoder.matches("actual", "encoded")).thenReturn(true);
+        when(passwordEncoder.matches("nueva123", "encoded")).thenReturn(false);
+        when(passwordEncoder.encode("nueva123")).thenReturn("encodedNew");
+
+        service.updatePassword(new CompanyUpdatePassword("actual", "nueva123"), request);
+
+        assertEquals("encodedNew", company.getPassword());
+        assertNotNull(company.getCredentialsUpdatedAt());
+        InOrder inOrder = inOrder(companyRepository, authStateCache);
+        inOrder.verify(companyRepository).save(company);
+        inOrder.verify(authStateCache).invalidate(5L);
+    }
+
+    @Test
+    void updatePassword_keepsCallersSessionWithFreshToken() {
+        JwtUtil realJwtUtil = new JwtUtil(companyRepository, "clave-de-prueba", "generador", "clave-de-estado");
+        CompanyAuthStateCache realAuthStateCache = new CompanyAuthStateCache(companyRepository, Duration.ofMinutes(1), 100);
+        CompanyServiceImpl realService = new CompanyServiceImpl(companyRepository, mailOutboxService, companyMapper, realJwtUtil, passwordEncoder,
+                authUtil, contentStore, billRepository, logoCache, realAuthStateCache, snapshotCache);
+
+        Company company = Company.builder().id(5L).companyName(name).email(email).password("encoded").verified(true).build();
+        Instant loggedInAt = Instant.now().minusSeconds(3600).truncatedTo(ChronoUnit.SECONDS);
+        String previousToken = JWT.create()
+                .withIssuer("generador")
+                .withSubject("5")
+                .withIssuedAt(loggedInAt)
+                .withExpiresAt(loggedInAt.plus(Duration.ofDays(7)))
+                .sign(Algorithm.HMAC256("clave-de-prueba"));
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + previousToken);
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(passwordEncoder.matches("actual", "encoded")).thenReturn(true);
+        when(passwordEncoder.matches("nueva123", "encoded")).thenReturn(false);
+        when(passwordEncoder.encode("nueva123")).thenReturn("encodedNew");
+        when(companyRepository.findAuthStateById(5L)).thenAnswer(inv -> Optional.of(new CompanyAuthState(true, company.getCredentialsUpdatedAt())));
+
+        AuthResponse response = realService.updatePassword(new CompanyUpdatePassword("actual", "nueva123"), request);
+
+        DecodedJWT renewed = realJwtUtil.validateToken(response.jwt());
+        assertEquals("5", renewed.getSubject());
+        assertTrue(realAuthStateCache.isValid(5L, renewed.getIssuedAtAsInstant()));
+        assertFalse(realAuthStateCache.isValid(5L, loggedInAt));
+        // La sesión con "recordarme" sigue durando una semana
+        assertTrue(Duration.between(renewed.getIssuedAtAsInstant(), renewed.getExpiresAtAsInstant()).compareTo(Duration.ofDays(1)) > 0);
+    }
+
+    @Test
+    void getLogo_readsCachedSnapshot() {
+        when(authUtil.getCompanySnapshot(request)).thenReturn(
+                new CompanySnapshot(8L, name, email, null, "https://cdn/logos/8/logo", true, false, null));
+
+        assertEquals("https://cdn/logos/8/logo", service.getLogo(request));
+        assertFalse(service.hasAccessToken(request));
+        verify(authUtil, never()).getCompanyByRequest(request);
+        verifyNoInteractions(companyRepository);
+    }
+
+    @Test
+    void updateAddress_invalidatesSnapshotAfterSave() {
+        Company company = Company.builder().id(9L).companyName(name).email(email).address("Calle 1").build();
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(companyRepository.save(company)).thenReturn(company);
+
+        service.updateAddress(new CompanyUpdateAddress("Calle 2"), request);
+
+        assertEquals("Calle 2", company.getAddress());
+        InOrder inOrder = inOrder(companyRepository, snapshotCache);
+        inOrder.verify(companyRepository).save(company);
+        inOrder.verify(snapshotCache).invalidate(9L);
     }
 
     @Test
@@ -143,6 +243,14 @@ public class CompanyServiceImplTest {
         assertEquals(ErrorMessages.COMPANY_NOT_FOUND.getMessage(), ex.getMessage());
     }
 
+    @Test
+    void uploadLogo_invalidImage() {
+        MockMultipartFile file = new MockMultipartFile("file", "logo.png", "image/png", new byte[]{1, 2, 3});
+
+        assertThrows(IllegalArgumentException.class, () -> service.uploadLogo(file, request));
+        verifyNoInteractions(contentStore, logoCache);
+    }
+
     @Test
     void verifyEmail_tokenInvalid() {
         when(jwtUtil.extractCompanyNameFromToken(token)).thenReturn(null);
@@ -182,4 +290,82 @@ public class CompanyServiceImplTest {
         assertTrue(company.isVerified());
         verify(companyRepository).save(company);
     }
+
+    @Test
+    void uploadLogo_storesPreparedLogo() throws IOException {
+        Company company = Company.builder().id(7L).companyName(name).email(email).logoPath("https://cdn/logos/old.png").build();
+        MockMultipartFile file = pngFile();
+        EncodedLogo logo = new EncodedLogo(EncodedLogo.FLATE, new byte[]{1}, null, 10, 10);
+        when(logoCache.prepare(any(BufferedImage.class))).thenReturn(logo);
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(contentStore.store("logos", file.getBytes(), "png", "image/png"))
+                .thenReturn(new ContentStore.StoredContent("abc", "https://cdn/logos/abc.png"));
+
+        service.uploadLogo(file, request);
+
+        verify(logoCache).store(company, "https://cdn/logos/abc.png", logo);
+        verify(logoCache).invalidate("https://cdn/logos/old.png");
+        assertEquals("https://cdn/logos/abc.png", company.getLogoPath());
+        InOrder inOrder = inOrder(companyRepository, contentStore);
+        inOrder.verify(companyRepository).save(company);
+        inOrder.verify(contentStore).release("https://cdn/logos/old.png");
+    }
+
+    @Test
+    void uploadLogo_saveFails_releasesNewReference() throws IOException {
+        Company company = Company.builder().id(7L).companyName(name).email(email).logoPath("https://cdn/logos/old.png").build();
+        MockMultipartFile file = pngFile();
+        EncodedLogo logo = new EncodedLogo(EncodedLogo.FLATE, new byte[]{1}, null, 10, 10);
+        when(logoCache.prepare(any(BufferedImage.class))).thenReturn(logo);
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(contentStore.store("logos", file.getBytes(), "png", "image/png"))
+                .thenReturn(new ContentStore.StoredContent("abc", "https://cdn/logos/abc.png"));
+        when(companyRepository.save(company)).thenThrow(new IllegalStateException("db"));
+
+        assertThrows(IllegalStateException.class, () -> service.uploadLogo(file, request));
+
+        verify(contentStore).release("https://cdn/logos/abc.png");
+        verify(contentStore, never()).release("https://cdn/logos/old.png");
+    }
+
+    @Test
+    void uploadLogo_sameContentKeepsCachedLogo() throws IOException {
+        Company company = Company.builder().id(7L).companyName(name).email(email).logoPath("https://cdn/logos/abc.png").build();
+        MockMultipartFile file = pngFile();
+        EncodedLogo logo = new EncodedLogo(EncodedLogo.FLATE, new byte[]{1}, null, 10, 10);
+        when(logoCache.prepare(any(BufferedImage.class))).thenReturn(logo);
+        when(authUtil.getCompanyByRequest(request)).thenReturn(company);
+        when(contentStore.store("logos", file.getBytes(), "png", "image/png"))
+                .thenReturn(new ContentStore.StoredContent("abc", "https://cdn/logos/abc.png"));
+
+        service.uploadLogo(file, request);
+
+        verify(logoCache, never()).invalidate(any());
+        verify(contentStore).release("https://cdn/logos/abc.png");
+    }
+
+    @Test
+    void deleteCompany_releasesStoredFiles() {
+        Long id = 3L;
+        when(authUtil.getAuthenticatedCompanyId(request)).thenReturn(id);
+        when(companyRepository.existsById(id)).thenReturn(true);
+        when(snapshotCache.get(id)).thenReturn(Optional.of(new CompanySnapshot(id, name, email, null, "https://cdn/logos/abc.png", true, false, null)));
+        when(billRepository.findPdfPathsByCompanyId(id)).thenReturn(List.of("https://cdn/bills/a.pdf", "https://cdn/bills/b.pdf", "https://cdn/bills/a.pdf"));
+        when(billRepository.findLogoPathsByCompanyIdAndPdfStatus(id, PdfStatus.DEFERRED)).thenReturn(List.of("https://cdn/logos/old.png"));
+
+        service.deleteCompany(request);
+
+        InOrder inOrder = inOrder(companyRepository, contentStore);
+        inOrder.verify(companyRepository).deleteById(id);
+        inOrder.verify(contentStore).release("https://cdn/logos/abc.png");
+        verify(contentStore).release("https://cdn/bills/a.pdf", 2L);
+        verify(contentStore).release("https://cdn/bills/b.pdf", 1L);
+        verify(contentStore).release("https://cdn/logos/old.png", 1L);
+    }
+
+    private MockMultipartFile pngFile() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", png);
+        return new MockMultipartFile("file", "logo.png", "image/png", png.toByteArray());
+    }
 }
@@ -0,0 +1,84 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.repository.IStoredBlobRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.github.veron_santiago.backend.util.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContentStoreTest {
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F'};
+    private static final String HASH = ContentHash.sha256Hex(PDF);
+    private static final String LOCATION = "http://localhost:8080/files/bills/" + HASH + ".pdf";
+
+    @Mock private IBlobStore blobStore;
+    @Mock private IStoredBlobRepository storedBlobRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = new ContentStore(blobStore, storedBlobRepository, transactionManager);
+    }
+
+    @Test
+    void store_newContentIsUploadedUnderItsHash() throws IOException {
+        when(storedBlobRepository.acquire(HASH)).thenReturn(0);
+        when(blobStore.put("bills/" + HASH + ".pdf", PDF, "application/pdf")).thenReturn(LOCATION);
+
+        ContentStore.StoredContent stored = contentStore.store("bills", PDF, "pdf", "application/pdf");
+
+        assertEquals(new ContentStore.StoredContent(HASH, LOCATION), stored);
+        verify(storedBlobRepository).insert(eq(HASH), eq(LOCATION), eq("application/pdf"), eq(4L), any());
+    }
+
+    @Test
+    void store_knownContentOnlyAddsAReference() throws IOException {
+        when(storedBlobRepository.acquire(HASH)).thenReturn(1);
+        when(storedBlobRepository.findLocationByHash(HASH)).thenReturn(Optional.of(LOCATION));
+
+        ContentStore.StoredContent stored = contentStore.store("bills", PDF, "pdf", "application/pdf");
+
+        assertEquals(LOCATION, stored.location());
+        verifyNoInteractions(blobStore);
+        verify(storedBlobRepository, never()).insert(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void store_concurrentInsertJoinsTheExistingRecord() throws IOException {
+        when(storedBlobRepository.acquire(HASH)).thenReturn(0, 1);
+        when(blobStore.put(any(), any(), any())).thenReturn(LOCATION);
+        when(storedBlobRepository.insert(any(), any(), any(), anyLong(), any())).thenThrow(new DataIntegrityViolationException("duplicado"));
+        when(storedBlobRepository.findLocationByHash(HASH)).thenReturn(Optional.of(LOCATION));
+
+        ContentStore.StoredContent stored = contentStore.store("bills", PDF, "pdf", "application/pdf");
+
+        assertEquals(LOCATION, stored.location());
+        verify(storedBlobRepository, times(2)).acquire(HASH);
+    }
+
+    @Test
+    void release_ignoresMissingLocations() {
+        contentStore.release(null);
+        contentStore.release("");
+        contentStore.release(LOCATION, 0);
+
+        verifyNoInteractions(storedBlobRepository);
+    }
+
+}
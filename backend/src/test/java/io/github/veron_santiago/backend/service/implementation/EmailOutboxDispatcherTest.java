@@ -0,0 +1,218 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.github.veron_santiago.backend.persistence.entity.EmailOutbox;
+import io.github.veron_santiago.backend.persistence.entity.EmailStatus;
+import io.github.veron_santiago.backend.persistence.repository.IEmailOutboxRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock private IEmailOutboxRepository emailOutboxRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private IBlobStore blobStore;
+
+    @TempDir
+    Path spoolDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void dispatch_sendsPendingBatch() throws Exception {
+        List<EmailOutbox> batch = List.of(email(1L, "a@mail.com", 0), email(2L, "b@mail.com", 0), email(3L, "c@mail.com", 0));
+        stubClaim(batch);
+
+        dispatcher(greenMail.getSmtp().getPort(), 8).dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Asunto", received[0].getSubject());
+        batch.forEach(email -> {
+            assertEquals(EmailStatus.SENT, email.getStatus());
+            assertNotNull(email.getSentAt());
+            assertNull(email.getLeaseUntil());
+        });
+        assertEquals(3, meterRegistry.counter("mail.outbox.sent").count());
+    }
+
+    @Test
+    void dispatch_attachesSpooledPdfAndDeletesIt() throws Exception {
+        MailSpool mailSpool = new MailSpool(spoolDir);
+        String spoolPath = mailSpool.write("%PDF-1.4".getBytes(StandardCharsets.US_ASCII));
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        email.setAttachmentName("00000001.pdf");
+        email.setAttachmentUrl("http://localhost:1/no-deberia-descargarse.pdf");
+        email.setAttachmentSpoolPath(spoolPath);
+        stubClaim(List.of(email));
+
+        dispatcher(greenMail.getSmtp().getPort(), 8, mailSpool).dispatch();
+
+        assertEquals(EmailStatus.SENT, email.getStatus());
+        MimeMultipart content = (MimeMultipart) greenMail.getReceivedMessages()[0].getContent();
+        assertEquals("00000001.pdf", content.getBodyPart(1).getFileName());
+        assertFalse(Files.exists(Path.of(spoolPath)));
+    }
+
+    @Test
+    void dispatch_retry_keepsSpooledPdf() throws Exception {
+        MailSpool mailSpool = new MailSpool(spoolDir);
+        String spoolPath = mailSpool.write("%PDF-1.4".getBytes(StandardCharsets.US_ASCII));
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        email.setAttachmentName("00000001.pdf");
+        email.setAttachmentSpoolPath(spoolPath);
+        stubClaim(List.of(email));
+
+        dispatcher(closedPort(), 8, mailSpool).dispatch();
+
+        assertEquals(EmailStatus.PENDING, email.getStatus());
+        assertTrue(Files.exists(Path.of(spoolPath)));
+    }
+
+    @Test
+    void dispatch_smtpUnavailable_schedulesRetry() throws Exception {
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        stubClaim(List.of(email));
+
+        dispatcher(closedPort(), 8).dispatch();
+
+        assertEquals(EmailStatus.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertNotNull(email.getLastError());
+        assertTrue(email.getNextAttemptAt().isAfter(Instant.now().plusSeconds(20)));
+        assertEquals(1, meterRegistry.counter("mail.outbox.retried").count());
+    }
+
+    @Test
+    void dispatch_lastAttempt_marksFailed() throws Exception {
+        EmailOutbox email = email(1L, "a@mail.com", 2);
+        stubClaim(List.of(email));
+
+        dispatcher(closedPort(), 3).dispatch();
+
+        assertEquals(EmailStatus.FAILED, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        assertEquals(1, meterRegistry.counter("mail.outbox.failed").count());
+    }
+
+    @Test
+    void dispatch_downloadsAttachmentAfterClaimCommit() throws Exception {
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        email.setAttachmentName("00000001.pdf");
+        email.setAttachmentUrl("https://cdn/bills/abc.pdf");
+        stubClaim(List.of(email));
+        when(blobStore.read("https://cdn/bills/abc.pdf")).thenAnswer(inv -> {
+            verify(transactionManager, times(1)).commit(any());
+            assertEquals(EmailStatus.SENDING, email.getStatus());
+            assertNotNull(email.getLeaseUntil());
+            return "%PDF-1.4".getBytes(StandardCharsets.US_ASCII);
+        });
+
+        dispatcher(greenMail.getSmtp().getPort(), 8).dispatch();
+
+        assertEquals(EmailStatus.SENT, email.getStatus());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void dispatch_leaseTakenByOtherInstance_leavesRowAndSpoolUntouched() throws Exception {
+        MailSpool mailSpool = new MailSpool(spoolDir);
+        String spoolPath = mailSpool.write("%PDF-1.4".getBytes(StandardCharsets.US_ASCII));
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        email.setAttachmentName("00000001.pdf");
+        email.setAttachmentSpoolPath(spoolPath);
+        Instant otherLease = Instant.now().plusSeconds(600);
+        EmailOutbox reloaded = email(1L, "a@mail.com", 0);
+        reloaded.setStatus(EmailStatus.SENDING);
+        reloaded.setLeaseUntil(otherLease);
+        when(emailOutboxRepository.findClaimableForUpdate(eq(EmailStatus.PENDING), eq(EmailStatus.SENDING), any(), any())).thenReturn(List.of(email));
+        when(emailOutboxRepository.findAllById(List.of(1L))).thenReturn(List.of(reloaded));
+
+        dispatcher(greenMail.getSmtp().getPort(), 8, mailSpool).dispatch();
+
+        assertEquals(EmailStatus.SENDING, reloaded.getStatus());
+        assertEquals(otherLease, reloaded.getLeaseUntil());
+        assertNull(reloaded.getSentAt());
+        assertTrue(Files.exists(Path.of(spoolPath)));
+        assertEquals(0, meterRegistry.counter("mail.outbox.sent").count());
+    }
+
+    @Test
+    void dispatch_staleLease_isReclaimed() throws Exception {
+        EmailOutbox email = email(1L, "a@mail.com", 0);
+        email.setStatus(EmailStatus.SENDING);
+        email.setLeaseUntil(Instant.now().minusSeconds(60));
+        stubClaim(List.of(email));
+
+        dispatcher(greenMail.getSmtp().getPort(), 8).dispatch();
+
+        assertEquals(EmailStatus.SENT, email.getStatus());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    private void stubClaim(List<EmailOutbox> batch) {
+        when(emailOutboxRepository.findClaimableForUpdate(eq(EmailStatus.PENDING), eq(EmailStatus.SENDING), any(), any())).thenReturn(batch);
+        when(emailOutboxRepository.findAllById(batch.stream().map(EmailOutbox::getId).toList())).thenReturn(batch);
+    }
+
+    private EmailOutboxDispatcher dispatcher(int port, int maxAttempts) {
+        return dispatcher(port, maxAttempts, new MailSpool(spoolDir));
+    }
+
+    private EmailOutboxDispatcher dispatcher(int port, int maxAttempts, MailSpool mailSpool) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        return new EmailOutboxDispatcher(emailOutboxRepository, sender, mailSpool, blobStore, transactionManager, meterRegistry,
+                20, maxAttempts, Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMinutes(5));
+    }
+
+    private EmailOutbox email(Long id, String recipient, int attempts) {
+        Instant now = Instant.now();
+        return EmailOutbox.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Asunto")
+                .body("Cuerpo")
+                .attempts(attempts)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+    private int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
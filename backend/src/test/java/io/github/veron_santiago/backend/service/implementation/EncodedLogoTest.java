@@ -0,0 +1,84 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedLogoTest {
+
+    @Test
+    void encode_opaqueImage_hasNoMask() throws IOException {
+        BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 1, 0xFF0000);
+
+        EncodedLogo logo = EncodedLogo.encode(image);
+
+        assertNull(logo.alpha());
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject pdImage = logo.toImage(document);
+            assertEquals(4, pdImage.getWidth());
+            assertEquals(2, pdImage.getHeight());
+            assertEquals(0xFF0000, pdImage.getImage().getRGB(1, 1) & 0xFFFFFF);
+        }
+    }
+
+    @Test
+    void encode_translucentImage_keepsMask() throws IOException {
+        BufferedImage image = new BufferedImage(3, 3, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0x800000FF);
+
+        EncodedLogo logo = EncodedLogo.encode(image);
+
+        assertNotNull(logo.alpha());
+        try (PDDocument document = new PDDocument()) {
+            assertNotNull(logo.toImage(document).getSoftMask());
+        }
+    }
+
+    @Test
+    void prepare_downscalesToMaxHeight() throws IOException {
+        BufferedImage image = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        EncodedLogo logo = EncodedLogo.prepare(image, 600, 150);
+
+        assertEquals(150, logo.height());
+        assertEquals(300, logo.width());
+        assertEquals(EncodedLogo.FLATE, logo.filter());
+    }
+
+    @Test
+    void prepare_wideImage_downscalesToMaxWidth() throws IOException {
+        BufferedImage image = new BufferedImage(4000, 300, BufferedImage.TYPE_INT_RGB);
+
+        EncodedLogo logo = EncodedLogo.prepare(image, 600, 150);
+
+        assertEquals(600, logo.width());
+        assertEquals(45, logo.height());
+    }
+
+    @Test
+    void prepare_photographicImage_usesJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int noise = random.nextInt(8);
+                image.setRGB(x, y, ((x + noise) << 16) | ((y * 2 + noise) << 8) | ((x + y) / 2 + noise));
+            }
+        }
+
+        EncodedLogo logo = EncodedLogo.prepare(image, 600, 150);
+
+        assertEquals(EncodedLogo.DCT, logo.filter());
+        try (PDDocument document = new PDDocument()) {
+            assertEquals(200, logo.toImage(document).getImage().getWidth());
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LocalBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Mock private RemoteFileClient remoteFileClient;
+
+    private LocalBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalBlobStore(root, "http://localhost:8080/files/", remoteFileClient);
+    }
+
+    @Test
+    void put_writesIntoShardedDirectoryAndReturnsPublicUrl() throws IOException {
+        byte[] pdf = "%PDF-1.4".getBytes(StandardCharsets.UTF_8);
+
+        String location = store.put("bills/7/00000001_20260101_ABC.pdf", pdf, "application/pdf");
+
+        assertEquals("http://localhost:8080/files/bills/7/00000001_20260101_ABC.pdf", location);
+        Path file = store.resolve("bills/7/00000001_20260101_ABC.pdf");
+        assertTrue(Files.isRegularFile(file));
+        assertEquals(root.resolve("bills/7"), file.getParent().getParent().getParent());
+        assertArrayEquals(pdf, Files.readAllBytes(file));
+        assertArrayEquals(pdf, store.read(location));
+    }
+
+    @Test
+    void put_replacesExistingContentWithoutLeavingTemporaryFiles() throws IOException {
+        store.put("logos/7/logo.png", new byte[]{1, 2, 3}, "image/png");
+        String location = store.put("logos/7/logo.png", new byte[]{4, 5}, "image/png");
+
+        assertArrayEquals(new byte[]{4, 5}, store.read(location));
+        try (Stream<Path> files = Files.list(store.resolve("logos/7/logo.png").getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void read_acceptsBareKeysAndDelegatesForeignUrls() throws IOException {
+        store.put("logos/7/logo.png", new byte[]{9}, "image/png");
+        when(remoteFileClient.download("https://res.cloudinary.com/logos/7/old.png")).thenReturn(new byte[]{1});
+
+        assertArrayEquals(new byte[]{9}, store.read("logos/7/logo.png"));
+        assertArrayEquals(new byte[]{1}, store.read("https://res.cloudinary.com/logos/7/old.png"));
+    }
+
+    @Test
+    void resolve_rejectsKeysOutsideTheRoot() {
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("bills/../../secret.pdf"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("/bills/7/a.pdf"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("factura.pdf"));
+    }
+
+    @Test
+    void read_missingFileFails() {
+        assertThrows(IOException.class, () -> store.read("bills/7/inexistente.pdf"));
+        verifyNoInteractions(remoteFileClient);
+    }
+
+}
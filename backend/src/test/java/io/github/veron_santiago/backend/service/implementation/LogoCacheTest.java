@@ -0,0 +1,81 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.CompanyLogo;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyLogoRepository;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LogoCacheTest {
+
+    private static final String OLD_LOGO = "https://cdn/logos/viejo.png";
+    private static final String NEW_LOGO = "https://cdn/logos/nuevo.png";
+
+    @Mock private ICompanyLogoRepository companyLogoRepository;
+    @Mock private ICompanyRepository companyRepository;
+    @Mock private IBlobStore blobStore;
+
+    private LogoCache logoCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logoCache = new LogoCache(companyLogoRepository, companyRepository, new PdfTemplate(), blobStore, 1 << 20);
+    }
+
+    @Test
+    void get_oldLogoAfterLogoChange_isCachedWithoutOverwritingCurrentRow() throws IOException {
+        when(companyLogoRepository.findByCompanyIdAndLogoPath(1L, OLD_LOGO)).thenReturn(Optional.empty());
+        when(blobStore.read(OLD_LOGO)).thenReturn(png());
+        when(companyRepository.findLogoPathById(1L)).thenReturn(Optional.of(NEW_LOGO));
+
+        EncodedLogo first = logoCache.get(1L, OLD_LOGO);
+        EncodedLogo second = logoCache.get(1L, OLD_LOGO);
+
+        assertSame(first, second);
+        verify(blobStore, times(1)).read(OLD_LOGO);
+        verify(companyLogoRepository, never()).save(any());
+    }
+
+    @Test
+    void get_currentLogoWithoutPreparedRow_persistsIt() throws IOException {
+        Company company = new Company();
+        company.setId(1L);
+        when(companyLogoRepository.findByCompanyIdAndLogoPath(1L, NEW_LOGO)).thenReturn(Optional.empty());
+        when(blobStore.read(NEW_LOGO)).thenReturn(png());
+        when(companyRepository.findLogoPathById(1L)).thenReturn(Optional.of(NEW_LOGO));
+        when(companyRepository.getReferenceById(1L)).thenReturn(company);
+        when(companyLogoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        logoCache.get(1L, NEW_LOGO);
+
+        ArgumentCaptor<CompanyLogo> saved = ArgumentCaptor.forClass(CompanyLogo.class);
+        verify(companyLogoRepository).save(saved.capture());
+        assertEquals(NEW_LOGO, saved.getValue().getLogoPath());
+    }
+
+    private byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 3, 0x00FF00);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,201 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.veron_santiago.backend.persistence.projection.MpCredentials;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.exception.BadGatewayException;
+import io.github.veron_santiago.backend.service.exception.UnprocessableEntity;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.CompanySnapshotCache;
+import io.github.veron_santiago.backend.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MercadoPagoServiceImplTest {
+
+    @Mock private ICompanyRepository companyRepository;
+    @Mock private AuthUtil authUtil;
+    @Mock private JwtUtil jwtUtil;
+    @Mock private CompanySnapshotCache snapshotCache;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private HttpServer server;
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+    private final AtomicInteger refreshStatus = new AtomicInteger(200);
+    private final List<String> preferenceTokens = new CopyOnWriteArrayList<>();
+    private final AtomicReference<MpCredentials> stored = new AtomicReference<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private MercadoPagoServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/oauth/token", this::oauthToken);
+        server.createContext("/checkout/preferences", this::preferences);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MercadoPagoServiceImpl(companyRepository, new RestTemplate(), authUtil, jwtUtil, snapshotCache, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(service, "clientId", "client");
+        ReflectionTestUtils.setField(service, "clientSecret", "secret");
+        ReflectionTestUtils.setField(service, "apiUri", "http://127.0.0.1:" + server.getAddress().getPort());
+
+        stored.set(new MpCredentials("old-access", "old-refresh", Instant.now().getEpochSecond() - 10));
+        lenient().when(companyRepository.findMpCredentialsById(1L)).thenAnswer(inv -> Optional.of(stored.get()));
+        lenient().when(companyRepository.updateMpCredentials(eq(1L), anyString(), anyString(), anyLong(), anyString())).thenAnswer(inv -> {
+            if (!stored.get().refreshToken().equals(inv.getArgument(4))) return 0;
+            stored.set(new MpCredentials(inv.getArgument(1), inv.getArgument(2), inv.getArgument(3)));
+            return 1;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void createPaymentLink_concurrentRequestsShareOneRefresh() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> links = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            links.add(pool.submit(() -> {
+                start.await();
+                return service.createPaymentLink(1L, "Empresa", new BigDecimal("100.00"));
+            }));
+        }
+        start.countDown();
+        for (Future<String> link : links) assertEquals("https://mp/checkout", link.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1, refreshCalls.get());
+        assertEquals(threads, preferenceTokens.size());
+        assertTrue(preferenceTokens.stream().allMatch("new-access-1"::equals));
+        assertEquals("new-refresh-1", stored.get().refreshToken());
+        verify(snapshotCache).invalidate(1L);
+    }
+
+    @Test
+    void createPaymentLink_readsTokensFromDatabaseAndPersistsRenewal() {
+        assertEquals("https://mp/checkout", service.createPaymentLink(1L, "Empresa", new BigDecimal("50.00")));
+
+        assertEquals(List.of("new-access-1"), preferenceTokens);
+        assertEquals("new-refresh-1", stored.get().refreshToken());
+        verify(companyRepository, never()).save(any());
+    }
+
+    @Test
+    void createPaymentLink_unlinkedCompanyIsRejected() {
+        stored.set(new MpCredentials(null, null, null));
+
+        assertThrows(UnprocessableEntity.class, () -> service.createPaymentLink(1L, "Empresa", BigDecimal.TEN));
+        assertEquals(0, refreshCalls.get());
+    }
+
+    @Test
+    void createPaymentLink_skipsRefreshWhenAnotherRequestAlreadyRenewed() {
+        stored.set(new MpCredentials("fresh-access", "fresh-refresh", Instant.now().getEpochSecond() + 3600));
+
+        service.createPaymentLink(1L, "Empresa", new BigDecimal("50.00"));
+
+        assertEquals(0, refreshCalls.get());
+        assertEquals(List.of("fresh-access"), preferenceTokens);
+    }
+
+    @Test
+    void createPaymentLink_failedRefreshReleasesTheFlight() {
+        refreshStatus.set(500);
+        assertThrows(RuntimeException.class, () -> service.createPaymentLink(1L, "Empresa", BigDecimal.TEN));
+
+        refreshStatus.set(200);
+        assertEquals("https://mp/checkout", service.createPaymentLink(1L, "Empresa", BigDecimal.TEN));
+        assertEquals(2, refreshCalls.get());
+    }
+
+    @Test
+    void refreshAccessTokenIfExpiring_renewsAheadOfExpiryAndRecordsTiming() {
+        stored.set(new MpCredentials("old-access", "old-refresh", Instant.now().getEpochSecond() + 600));
+
+        service.refreshAccessTokenIfExpiring(1L, Duration.ofMinutes(30));
+        service.refreshAccessTokenIfExpiring(1L, Duration.ofMinutes(30));
+
+        assertEquals(1, refreshCalls.get());
+        assertEquals("new-access-1", stored.get().accessToken());
+        assertEquals(1, meterRegistry.get("mp.token.refresh").tag("trigger", "scheduled").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void createPaymentLink_missingTokensIsBadGateway() {
+        refreshStatus.set(204);
+
+        assertThrows(BadGatewayException.class, () -> service.createPaymentLink(1L, "Empresa", BigDecimal.TEN));
+    }
+
+    private void oauthToken(HttpExchange exchange) throws IOException {
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int call = refreshCalls.incrementAndGet();
+        try {
+            // Ventana amplia para que todos los hilos lleguen mientras el refresh está en curso
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (refreshStatus.get() == 204 || !form.contains("refresh_token=" + stored.get().refreshToken())) {
+            respond(exchange, refreshStatus.get() == 204 ? 200 : 400, "{}");
+            return;
+        }
+        if (refreshStatus.get() != 200) {
+            respond(exchange, refreshStatus.get(), "{\"error\":\"server_error\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"access_token\":\"new-access-" + call + "\",\"refresh_token\":\"new-refresh-" + call + "\",\"expires_in\":21600}");
+    }
+
+    private void preferences(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        preferenceTokens.add(exchange.getRequestHeaders().getFirst("Authorization").substring("Bearer ".length()));
+        respond(exchange, 201, "{\"init_point\":\"https://mp/checkout\"}");
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
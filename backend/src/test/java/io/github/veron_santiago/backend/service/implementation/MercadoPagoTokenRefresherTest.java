@@ -0,0 +1,76 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.exception.BadGatewayException;
+import io.github.veron_santiago.backend.service.interfaces.IMercadoPagoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MercadoPagoTokenRefresherTest {
+
+    @Mock private ICompanyRepository companyRepository;
+    @Mock private IMercadoPagoService mercadoPagoService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MercadoPagoTokenRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        refresher = new MercadoPagoTokenRefresher(companyRepository, mercadoPagoService, meterRegistry,
+                Duration.ofMinutes(30), 10, Duration.ZERO, Duration.ofMinutes(15));
+    }
+
+    @Test
+    void refreshExpiring_refreshesTokensInsideLookahead() {
+        when(companyRepository.findIdsWithMpTokenExpiringBefore(anyLong(), anyCollection(), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+
+        refresher.refreshExpiring();
+
+        ArgumentCaptor<Long> before = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(companyRepository).findIdsWithMpTokenExpiringBefore(before.capture(), anyCollection(), page.capture());
+        long expected = Instant.now().plus(Duration.ofMinutes(30)).getEpochSecond();
+        assertTrue(Math.abs(before.getValue() - expected) <= 2);
+        assertEquals(10, page.getValue().getPageSize());
+        verify(mercadoPagoService).refreshAccessTokenIfExpiring(1L, Duration.ofMinutes(30));
+        verify(mercadoPagoService).refreshAccessTokenIfExpiring(2L, Duration.ofMinutes(30));
+        assertEquals(2.0, meterRegistry.get("mp.token.scheduled.processed").counter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void refreshExpiring_failedCompanyWaitsBeforeRetry() {
+        when(companyRepository.findIdsWithMpTokenExpiringBefore(anyLong(), anyCollection(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of());
+        lenient().doThrow(new BadGatewayException("Fallo")).when(mercadoPagoService).refreshAccessTokenIfExpiring(eq(1L), any());
+
+        refresher.refreshExpiring();
+        refresher.refreshExpiring();
+
+        verify(mercadoPagoService).refreshAccessTokenIfExpiring(2L, Duration.ofMinutes(30));
+        assertEquals(1.0, meterRegistry.get("mp.token.scheduled.failed").counter().count());
+        ArgumentCaptor<Collection<Long>> excluded = ArgumentCaptor.forClass(Collection.class);
+        verify(companyRepository, times(2)).findIdsWithMpTokenExpiringBefore(anyLong(), excluded.capture(), any(Pageable.class));
+        assertFalse(excluded.getAllValues().get(0).contains(1L));
+        assertTrue(excluded.getAllValues().get(1).contains(1L));
+    }
+
+}
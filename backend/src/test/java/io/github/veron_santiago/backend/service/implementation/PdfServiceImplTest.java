@@ -0,0 +1,131 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.Bill;
+import io.github.veron_santiago.backend.persistence.entity.BillLine;
+import io.github.veron_santiago.backend.persistence.entity.Company;
+import io.github.veron_santiago.backend.persistence.entity.PdfStatus;
+import io.github.veron_santiago.backend.persistence.repository.IBillRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import io.github.veron_santiago.backend.service.interfaces.IPdfService;
+import io.github.veron_santiago.backend.util.AuthUtil;
+import io.github.veron_santiago.backend.util.ContentHash;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PdfServiceImplTest {
+
+    private static final String PAYMENT_LINK = "https://mp/link/123";
+
+    @Mock private IBillRepository billRepository;
+    @Mock private IBlobStore blobStore;
+    @Mock private ContentStore contentStore;
+    @Mock private AuthUtil authUtil;
+    @Mock private LogoCache logoCache;
+    @Mock private HttpServletRequest request;
+
+    private final QrCodeService qrCodeService = new QrCodeService();
+    private final List<byte[]> stored = new ArrayList<>();
+    private PdfServiceImpl pdfService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        PdfTemplate pdfTemplate = new PdfTemplate();
+        pdfService = new PdfServiceImpl(billRepository, blobStore, contentStore, authUtil, pdfTemplate, new BillPdfLayout(pdfTemplate), logoCache, qrCodeService);
+        when(contentStore.store(eq("bills"), any(), eq("pdf"), eq("application/pdf"))).thenAnswer(inv -> {
+            byte[] content = inv.getArgument(1);
+            stored.add(content);
+            String hash = ContentHash.sha256Hex(content);
+            return new ContentStore.StoredContent(hash, "https://cdn/bills/" + hash + ".pdf");
+        });
+    }
+
+    @Test
+    void getPdfFile_deferredBillMatchesEagerRender() throws IOException {
+        IPdfService.RenderedPdf eager = pdfService.generateBillPdf(bill(PdfStatus.PENDING), true, qrCodeService.generateQrCode(PAYMENT_LINK, 200, 200));
+
+        Bill deferred = bill(PdfStatus.DEFERRED);
+        stubDeferred(deferred);
+        when(billRepository.updatePdfIfStatus(10L, eager.path(), eager.hash(), PdfStatus.READY, PdfStatus.DEFERRED)).thenReturn(1);
+
+        IPdfService.PdfFile file = pdfService.getPdfFile(10L, request).orElseThrow();
+
+        assertEquals(2, stored.size());
+        assertArrayEquals(stored.get(0), stored.get(1));
+        assertEquals(new IPdfService.PdfFile(eager.path(), "00000042.pdf", eager.hash()), file);
+        assertEquals(PdfStatus.READY, deferred.getPdfStatus());
+        verify(contentStore, never()).release(eager.path());
+    }
+
+    @Test
+    void getPdfFile_deferredBillRenderedConcurrentlyReleasesExtraReference() throws IOException {
+        Bill deferred = bill(PdfStatus.DEFERRED);
+        stubDeferred(deferred);
+        when(billRepository.updatePdfIfStatus(eq(10L), any(), any(), eq(PdfStatus.READY), eq(PdfStatus.DEFERRED))).thenReturn(0);
+
+        IPdfService.PdfFile file = pdfService.getPdfFile(10L, request).orElseThrow();
+
+        verify(contentStore).release(file.location());
+        verify(contentStore, never()).release(isNull());
+    }
+
+    @Test
+    void getPdfFile_deferredBillUpdateFailsReleasesStoredPdf() {
+        Bill deferred = bill(PdfStatus.DEFERRED);
+        stubDeferred(deferred);
+        when(billRepository.updatePdfIfStatus(eq(10L), any(), any(), eq(PdfStatus.READY), eq(PdfStatus.DEFERRED)))
+                .thenThrow(new IllegalStateException("db"));
+
+        assertThrows(IllegalStateException.class, () -> pdfService.getPdfFile(10L, request));
+
+        verify(contentStore).release(startsWith("https://cdn/bills/"));
+        assertEquals(PdfStatus.DEFERRED, deferred.getPdfStatus());
+    }
+
+    private void stubDeferred(Bill deferred) {
+        when(authUtil.getAuthenticatedCompanyId(request)).thenReturn(1L);
+        when(billRepository.findById(10L)).thenReturn(Optional.of(deferred));
+        when(billRepository.findWithLinesById(10L)).thenReturn(Optional.of(deferred));
+    }
+
+    private Bill bill(PdfStatus status) {
+        Company company = new Company();
+        company.setId(1L);
+        Bill bill = Bill.builder()
+                .id(10L)
+                .billNumber(42L)
+                .issueDate(LocalDate.of(2025, 3, 14))
+                .dueDate(LocalDate.of(2025, 4, 13))
+                .totalAmount(new BigDecimal("35.00"))
+                .companyName("Compañía")
+                .companyEmail("compania@mail.com")
+                .customerName("Cliente")
+                .customerEmail("cliente@mail.com")
+                .customerAddress("Calle 123")
+                .paymentLink(PAYMENT_LINK)
+                .company(company)
+                .pdfStatus(status)
+                .build();
+        bill.setBillLines(List.of(
+                BillLine.builder().id(1L).code("98422").name("ProdA").quantity(2).price(new BigDecimal("10.00")).total(new BigDecimal("20.00")).bill(bill).build(),
+                BillLine.builder().id(2L).name("ProdB").quantity(3).price(new BigDecimal("5.00")).total(new BigDecimal("15.00")).bill(bill).build()
+        ));
+        return bill;
+    }
+
+}
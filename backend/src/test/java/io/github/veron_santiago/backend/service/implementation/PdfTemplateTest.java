@@ -0,0 +1,40 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfTemplateTest {
+
+    private final PdfTemplate pdfTemplate = new PdfTemplate();
+
+    @Test
+    void open_returnsNormalizedForm() throws IOException {
+        try (PDDocument document = pdfTemplate.open()) {
+            PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+            assertNotNull(form);
+
+            String regular = ((PDTextField) form.getField("billNumber")).getDefaultAppearance();
+            String bold = ((PDTextField) form.getField("totalAmount")).getDefaultAppearance();
+            assertTrue(regular.matches("/\\S+ \\d+(\\.\\d+)? Tf 0 g"));
+            assertTrue(bold.matches("/\\S+ \\d+(\\.\\d+)? Tf 0 g"));
+            assertNotEquals(regular.split(" ")[0], bold.split(" ")[0]);
+        }
+    }
+
+    @Test
+    void open_returnsIndependentCopies() throws IOException {
+        try (PDDocument first = pdfTemplate.open(); PDDocument second = pdfTemplate.open()) {
+            String original = second.getDocumentCatalog().getAcroForm().getField("billNumber").getValueAsString();
+            first.getDocumentCatalog().getAcroForm().getField("billNumber").setValue("99999999");
+
+            assertEquals(original, second.getDocumentCatalog().getAcroForm().getField("billNumber").getValueAsString());
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.veron_santiago.backend.service.implementation;
+
+import io.github.veron_santiago.backend.persistence.entity.StoredBlob;
+import io.github.veron_santiago.backend.persistence.repository.IStoredBlobRepository;
+import io.github.veron_santiago.backend.service.interfaces.IBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StoredBlobSweeperTest {
+
+    @Mock private IStoredBlobRepository storedBlobRepository;
+    @Mock private IBlobStore blobStore;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private StoredBlobSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new StoredBlobSweeper(storedBlobRepository, blobStore, transactionManager, 20);
+    }
+
+    @Test
+    void sweep_deletesFilesWhileHoldingRowLocks() throws IOException {
+        StoredBlob blob = blob("a");
+        when(storedBlobRepository.findUnreferencedForUpdate(any())).thenReturn(List.of(blob));
+
+        sweeper.sweep();
+
+        // Un store() concurrente del mismo contenido espera el lock y vuelve a subir después del commit
+        InOrder inOrder = inOrder(storedBlobRepository, blobStore, transactionManager);
+        inOrder.verify(storedBlobRepository).findUnreferencedForUpdate(any());
+        inOrder.verify(blobStore).delete("https://cdn/bills/a.pdf");
+        inOrder.verify(storedBlobRepository).delete(blob);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void sweep_fileDeletionFails_keepsRowForNextSweep() throws IOException {
+        StoredBlob failing = blob("a");
+        StoredBlob other = blob("b");
+        when(storedBlobRepository.findUnreferencedForUpdate(any())).thenReturn(List.of(failing, other));
+        doThrow(new IOException("timeout")).when(blobStore).delete("https://cdn/bills/a.pdf");
+
+        sweeper.sweep();
+
+        verify(storedBlobRepository, never()).delete(failing);
+        verify(storedBlobRepository).delete(other);
+    }
+
+    private StoredBlob blob(String hash) {
+        StoredBlob blob = new StoredBlob();
+        blob.setHash(hash);
+        blob.setLocation("https://cdn/bills/" + hash + ".pdf");
+        return blob;
+    }
+
+}
@@ -0,0 +1,70 @@
+package io.github.veron_santiago.backend.util;
+
+import io.github.veron_santiago.backend.persistence.projection.CompanySnapshot;
+import io.github.veron_santiago.backend.persistence.repository.ICompanyRepository;
+import io.github.veron_santiago.backend.service.exception.ObjectNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CompanySnapshotCacheTest {
+
+    @Mock private ICompanyRepository companyRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompanySnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompanySnapshotCache(companyRepository, meterRegistry, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void get_loadsOncePerTtlAndRecordsHitsAndMisses() {
+        when(companyRepository.findSnapshotById(1L)).thenReturn(Optional.of(snapshot(1L, "Empresa")));
+
+        assertEquals("Empresa", cache.get(1L).orElseThrow().companyName());
+        assertEquals("Empresa", cache.get(1L).orElseThrow().companyName());
+
+        verify(companyRepository, times(1)).findSnapshotById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "company.snapshot").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "company.snapshot").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_reloadsSnapshot() {
+        when(companyRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(snapshot(1L, "Empresa")))
+                .thenReturn(Optional.of(snapshot(1L, "Empresa Nueva")));
+
+        cache.get(1L);
+        cache.invalidate(1L);
+
+        assertEquals("Empresa Nueva", cache.get(1L).orElseThrow().companyName());
+    }
+
+    @Test
+    void authUtil_throwsWhenCompanyDoesNotExist() {
+        when(companyRepository.findSnapshotById(2L)).thenReturn(Optional.empty());
+        AuthUtil authUtil = new AuthUtil(companyRepository, cache);
+
+        assertThrows(ObjectNotFoundException.class, () -> authUtil.getCompanySnapshotById(2L));
+        verify(companyRepository, never()).findById(any());
+    }
+
+    private CompanySnapshot snapshot(Long id, String name) {
+        return new CompanySnapshot(id, name, "empresa@mail.com", null, null, true, false, null);
+    }
+
+}
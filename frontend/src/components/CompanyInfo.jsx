@@ -203,12 +203,14 @@ const CompanyInfo = ({ companyName, email, address }) => {
             throw new Error(err.email || err.message || 'Error al actualizar email')
           })
         }
-        return res
+        return res.json()
       })
-      .then(() => {
+      .then(data => {
+        // El cambio revoca el token anterior; el backend devuelve uno nuevo para seguir en sesión
+        if (data.jwt) localStorage.setItem('token', data.jwt)
         setIsEditingEmail(false)
         setEmailError('')
-        setEmailSuccess('Email actualizado con éxito. Se ha enviado una notificación al email anterior.')
+        setEmailSuccess(data.message)
         setTimeout(() => window.location.reload(), 2000)
       })
       .catch(err => {
@@ -300,9 +302,10 @@ const CompanyInfo = ({ companyName, email, address }) => {
             throw new Error(msg)
           })
         }
-        return res
-      })    
-      .then(() => {
+        return res.json()
+      })
+      .then(data => {
+        if (data.jwt) localStorage.setItem('token', data.jwt)
         closePasswordDialog()
       })
       .catch(err => {
@@ -128,45 +128,33 @@ const BillList = () => {
 
   const handleDownloadPdf = async (billId) => {
     const token = localStorage.getItem("token");
-  const apiRes = await fetch(`${API_URL}/bills/${billId}/pdf`, {
+  const fileRes = await fetch(`${API_URL}/bills/${billId}/pdf/file`, {
     method: "GET",
     headers: { Authorization: `Bearer ${token}` }
   });
 
-  if (!apiRes.ok) {
-    throw new Error(`Error al pedir URL del PDF: ${apiRes.status}`);
+  if (!fileRes.ok) {
+    throw new Error(`Error al descargar el PDF: ${fileRes.status}`);
   }
 
-  const url = (await apiRes.text()).trim();
-
-  try {
-    const fileRes = await fetch(url, { method: "GET", mode: "cors" });
-    if (!fileRes.ok) {
-      window.open(url, "_blank");
-      return;
-    }
-
-    const u = new URL(url);
-    const parts = u.pathname.split("/");
-    const filename = decodeURIComponent(parts[parts.length - 1]);
+  if (fileRes.status === 202) {
+    alert("El PDF de la factura todavía se está generando. Intente nuevamente en unos segundos.");
+    return;
+  }
 
-    const blob = await fileRes.blob();
-    if (!blob || blob.size === 0) {
-      window.open(url, "_blank");
-      return;
-    }
+  const disposition = fileRes.headers.get("Content-Disposition") || "";
+  const match = disposition.match(/filename="?([^";]+)"?/);
+  const filename = match ? decodeURIComponent(match[1]) : `factura-${billId}.pdf`;
 
-    const blobUrl = URL.createObjectURL(blob);
-    const a = document.createElement("a");
-    a.href = blobUrl;
-    a.download = filename;
-    document.body.appendChild(a);
-    a.click();
-    a.remove();
-    URL.revokeObjectURL(blobUrl);
-  } catch (err) {
-    window.open(url, "_blank");
-  }
+  const blob = await fileRes.blob();
+  const blobUrl = URL.createObjectURL(blob);
+  const a = document.createElement("a");
+  a.href = blobUrl;
+  a.download = filename;
+  document.body.appendChild(a);
+  a.click();
+  a.remove();
+  URL.revokeObjectURL(blobUrl);
   }
 
   return (
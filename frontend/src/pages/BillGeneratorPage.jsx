@@ -167,8 +167,8 @@ export default function BillGeneratorPage() {
 
   const addItem = () => {
     setItems(prev => {
-      if (prev.length >= 17) {
-        alert("No se puede agregar más de 17 líneas en la factura.");
+      if (prev.length >= 1000) {
+        alert("No puede haber más de 1000 líneas en la factura");
         return prev;
       }
       return [...prev, { product: "", code: "", price: "", quantity: "" }];